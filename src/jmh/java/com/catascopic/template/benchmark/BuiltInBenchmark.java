@@ -0,0 +1,117 @@
+package com.catascopic.template.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.catascopic.template.TemplateEngine;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Measures a call to each built-in function. Each call is rendered by a
+ * template of its own, with arguments taken from the params so that the call
+ * is not folded into a constant when the template is parsed.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BuiltInBenchmark {
+
+	private static final Map<String, String> CALLS = ImmutableMap.<String, String> builder()
+			.put("bool", "bool(n)")
+			.put("float", "float(n)")
+			.put("int", "int(x)")
+			.put("str", "str(n)")
+			.put("len", "len(list)")
+			.put("min", "min(list)")
+			.put("max", "max(list)")
+			.put("sum", "sum(list)")
+			.put("abs", "abs(x)")
+			.put("sqrt", "sqrt(n)")
+			.put("range", "range(n)")
+			.put("enumerate", "enumerate(list)")
+			.put("stream", "stream(list)")
+			.put("zip", "zip(list, list)")
+			.put("keys", "keys(map)")
+			.put("values", "values(map)")
+			.put("entries", "entries(map)")
+			.put("contains", "contains(list, n)")
+			.put("capitalize", "capitalize(s)")
+			.put("replace", "replace(s, 'o', '0')")
+			.put("startsWith", "startsWith(s, '  he')")
+			.put("endsWith", "endsWith(s, 'ld  ')")
+			.put("indexOf", "indexOf(s, 'o')")
+			.put("lastIndexOf", "lastIndexOf(s, 'o')")
+			.put("join", "join(list, ', ')")
+			.put("split", "split(csv, ',')")
+			.put("splitLines", "splitLines(lines)")
+			.put("upper", "upper(s)")
+			.put("lower", "lower(s)")
+			.put("trim", "trim(s)")
+			.put("collapse", "collapse(s)")
+			.put("separatorToCamel", "separatorToCamel(snake)")
+			.put("camelToSeparator", "camelToSeparator(camel)")
+			.put("pad", "pad(csv, 20)")
+			.put("template", "template('cell.template', {value: n})")
+			.put("textFile", "textFile('text.txt')")
+			.put("locals", "locals()")
+			.put("eval", "eval('n + 1')")
+			.put("uneval", "uneval(map)")
+			.build();
+
+	@Param({ "bool", "float", "int", "str", "len", "min", "max", "sum", "abs",
+			"sqrt", "range", "enumerate", "stream", "zip", "keys", "values",
+			"entries", "contains", "capitalize", "replace", "startsWith",
+			"endsWith", "indexOf", "lastIndexOf", "join", "split", "splitLines",
+			"upper", "lower", "trim", "collapse", "separatorToCamel",
+			"camelToSeparator", "pad", "template", "textFile", "locals", "eval",
+			"uneval" })
+	public String function;
+
+	private Path directory;
+	private TemplateEngine engine;
+	private Path file;
+	private Map<String, Object> params;
+
+	@Setup
+	public void setUp() throws IOException {
+		directory = Data.writeTemplates();
+		file = directory.resolve(function + ".template");
+		Files.write(file, ("${" + CALLS.get(function) + "}")
+				.getBytes(StandardCharsets.UTF_8));
+		engine = TemplateEngine.create();
+		params = Data.params(10);
+		engine.render(file, params);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		engine.close();
+		Data.delete(directory);
+	}
+
+	@Benchmark
+	public String call() throws IOException {
+		return engine.render(file, params);
+	}
+
+}
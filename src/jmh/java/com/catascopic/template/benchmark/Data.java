@@ -0,0 +1,114 @@
+package com.catascopic.template.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Parameters and template files shared by the benchmarks.
+ */
+final class Data {
+
+	private Data() {}
+
+	/**
+	 * Writes the templates in {@link Sources}, and a text file, to a new
+	 * temporary directory.
+	 */
+	static Path writeTemplates() throws IOException {
+		Path directory = Files.createTempDirectory("benchmark");
+		write(directory.resolve("loop.template"), Sources.FIZZ_BUZZ);
+		write(directory.resolve("table.template"), Sources.TABLE);
+		write(directory.resolve("includes.template"), Sources.INCLUDES);
+		write(directory.resolve("row.template"), Sources.ROW);
+		write(directory.resolve("cell.template"), Sources.CELL);
+		write(directory.resolve("text.txt"), Strings.repeat("lorem ipsum\n", 100));
+		return directory;
+	}
+
+	private static void write(Path file, String content) throws IOException {
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	static void delete(Path directory) throws IOException {
+		Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
+					throws IOException {
+				Files.delete(file);
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult postVisitDirectory(Path dir, IOException e)
+					throws IOException {
+				Files.delete(dir);
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+
+	/**
+	 * Returns the params used by the benchmark templates, with the given
+	 * number of rows.
+	 */
+	static Map<String, Object> params(int rows) {
+		List<Map<String, Object>> list = new ArrayList<>();
+		for (int i = 0; i < rows; i++) {
+			Map<String, Object> row = new LinkedHashMap<>();
+			row.put("id", i);
+			row.put("name", "name" + i);
+			row.put("price", i * 1.25);
+			row.put("active", i % 3 != 0);
+			list.add(row);
+		}
+		return ImmutableMap.<String, Object> builder()
+				.put("count", rows)
+				.put("rows", list)
+				.put("n", 42)
+				.put("x", 2.5)
+				.put("s", "  hello,  world  ")
+				.put("csv", "a,b,c,d,e,f")
+				.put("lines", "one\ntwo\nthree")
+				.put("snake", "separator_to_camel")
+				.put("camel", "camelToSeparator")
+				.put("list", ImmutableList.of(5, 3, 8, 1, 9, 2))
+				.put("map", ImmutableMap.of("a", 1, "b", 2, "c", 3))
+				.build();
+	}
+
+	/**
+	 * Returns an OutputStream that consumes everything written to it.
+	 */
+	static OutputStream sink(final Blackhole blackhole) {
+		return new OutputStream() {
+
+			@Override
+			public void write(int b) {
+				blackhole.consume(b);
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) {
+				blackhole.consume(b);
+			}
+		};
+	}
+
+}
@@ -0,0 +1,43 @@
+package com.catascopic.template.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.catascopic.template.value.Values;
+
+/**
+ * Measures {@link Values#eval(String)}, which parses and evaluates an
+ * expression on every call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EvalBenchmark {
+
+	@Param({
+			"1 + 2 * 3 - 4 / 5",
+			"'abc' + 'def' == 'abcdef' ? 'yes' : 'no'",
+			"[1, 2, 3, 4, 5][1:-1]",
+			"{a: 1, b: [true, false], c: {d: 'e'}}['c']['d']",
+			"-(3 + 4) % 5 < 2 && !false" })
+	public String expression;
+
+	@Benchmark
+	public Object eval() {
+		return Values.eval(expression);
+	}
+
+}
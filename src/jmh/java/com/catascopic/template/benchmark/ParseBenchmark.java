@@ -0,0 +1,47 @@
+package com.catascopic.template.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.catascopic.template.Template;
+import com.google.common.base.Strings;
+
+/**
+ * Measures {@link Template#parse(String)} on a small template and on a large
+ * one made of many copies of it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParseBenchmark {
+
+	@Param({ "1", "1000" })
+	public int copies;
+
+	private String text;
+
+	@Setup
+	public void setUp() {
+		text = Strings.repeat(Sources.FIZZ_BUZZ, copies);
+	}
+
+	@Benchmark
+	public Template parse() {
+		return Template.parse(text);
+	}
+
+}
@@ -0,0 +1,73 @@
+package com.catascopic.template.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.catascopic.template.TemplateEngine;
+
+/**
+ * Measures rendering through a {@link TemplateEngine} of templates that are
+ * dominated by loops, by nested loops over data, and by included templates.
+ * Templates are parsed and cached during setup, so only rendering is measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RenderBenchmark {
+
+	@Param({ "loop.template", "table.template", "includes.template" })
+	public String template;
+
+	private Path directory;
+	private TemplateEngine engine;
+	private Path file;
+	private Map<String, Object> params;
+	private OutputStream sink;
+
+	@Setup
+	public void setUp(Blackhole blackhole) throws IOException {
+		directory = Data.writeTemplates();
+		engine = TemplateEngine.create();
+		file = directory.resolve(template);
+		params = Data.params(100);
+		sink = Data.sink(blackhole);
+		engine.render(file, params);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		engine.close();
+		Data.delete(directory);
+	}
+
+	@Benchmark
+	public String renderToString() throws IOException {
+		return engine.render(file, params);
+	}
+
+	@Benchmark
+	public void renderToStream() throws IOException {
+		engine.render(file, sink, params);
+	}
+
+}
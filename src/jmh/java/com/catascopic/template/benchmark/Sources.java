@@ -0,0 +1,42 @@
+package com.catascopic.template.benchmark;
+
+/**
+ * Templates shared by the benchmarks.
+ */
+final class Sources {
+
+	private Sources() {}
+
+	static final String FIZZ_BUZZ = "@{for n in range(count)}\n"
+			+ "\t@{if n % 15 == 0}\n"
+			+ "FizzBuzz\n"
+			+ "\t@{else if n % 3 == 0}\n"
+			+ "Fizz\n"
+			+ "\t@{else if n % 5 == 0}\n"
+			+ "Buzz\n"
+			+ "\t@{else}\n"
+			+ "${n}\n"
+			+ "\t@{end}\n"
+			+ "@{end}\n";
+
+	static final String TABLE = "<table>\n"
+			+ "@{for i, row in enumerate(rows)}\n"
+			+ "\t<tr class=\"${i % 2 == 0 ? 'even' : 'odd'}\">\n"
+			+ "\t@{for key, value in entries(row)}\n"
+			+ "\t\t<td title=\"${key}\">${upper(str(value))}</td>\n"
+			+ "\t@{end}\n"
+			+ "\t</tr>\n"
+			+ "@{end}\n"
+			+ "</table>\n";
+
+	static final String INCLUDES = "@{for row in rows}\n"
+			+ "@{include 'row.template' with {row: row}}\n"
+			+ "${template('cell.template', {value: row['name']})}\n"
+			+ "@{end}\n";
+
+	static final String ROW = "<tr>@{for value in values(row)}"
+			+ "@{include 'cell.template' with {value: value}}@{end}</tr>";
+
+	static final String CELL = "<td>${value}</td>";
+
+}
@@ -21,6 +21,16 @@ class BasicScope extends Scope {
 		this.settings = settings;
 	}
 
+	@Override
+	public Settings settings() {
+		return settings;
+	}
+
+	@Override
+	Scope extend() {
+		return new BasicScope(this, settings);
+	}
+
 	@Override
 	public TemplateFunction getFunction(String name) {
 		return settings.getFunction(name);
@@ -37,7 +47,12 @@ class BasicScope extends Scope {
 	}
 
 	@Override
-	public String renderTextFile(String path) {
+	public void renderTemplate(Appendable writer, String path, Map<String, ?> params) {
+		throw new TemplateRenderException("file resolution not allowed");
+	}
+
+	@Override
+	public CharSequence renderTextFile(String path) {
 		throw new TemplateRenderException("file resolution not allowed");
 	}
 }
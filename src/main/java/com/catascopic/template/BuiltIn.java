@@ -26,7 +26,12 @@ public enum BuiltIn implements TemplateFunction {
 
 		@Override
 		public Object apply(Params params) {
-			return params.getBoolean(0);
+			return apply(params.scope(), params.get(0));
+		}
+
+		@Override
+		public Object apply(Scope scope, Object arg) {
+			return Values.isTrue(arg);
 		}
 	},
 
@@ -40,7 +45,12 @@ public enum BuiltIn implements TemplateFunction {
 
 		@Override
 		public Object apply(Params params) {
-			return params.getDouble(0);
+			return apply(params.scope(), params.get(0));
+		}
+
+		@Override
+		public Object apply(Scope scope, Object arg) {
+			return Values.toNumber(arg).doubleValue();
 		}
 	},
 
@@ -54,7 +64,12 @@ public enum BuiltIn implements TemplateFunction {
 
 		@Override
 		public Object apply(Params params) {
-			return params.getInt(0);
+			return apply(params.scope(), params.get(0));
+		}
+
+		@Override
+		public Object apply(Scope scope, Object arg) {
+			return Values.toNumber(arg).intValue();
 		}
 	},
 
@@ -67,7 +82,12 @@ public enum BuiltIn implements TemplateFunction {
 
 		@Override
 		public Object apply(Params params) {
-			return params.getString(0);
+			return apply(params.scope(), params.get(0));
+		}
+
+		@Override
+		public Object apply(Scope scope, Object arg) {
+			return String.valueOf(arg);
 		}
 	},
 
@@ -81,7 +101,12 @@ public enum BuiltIn implements TemplateFunction {
 
 		@Override
 		public Object apply(Params params) {
-			return Values.len(params.get(0));
+			return apply(params.scope(), params.get(0));
+		}
+
+		@Override
+		public Object apply(Scope scope, Object arg) {
+			return Values.len(arg);
 		}
 	},
 
@@ -142,7 +167,12 @@ public enum BuiltIn implements TemplateFunction {
 
 		@Override
 		public Object apply(Params params) {
-			return Values.abs(params.getNumber(0));
+			return apply(params.scope(), params.get(0));
+		}
+
+		@Override
+		public Object apply(Scope scope, Object arg) {
+			return Values.abs(Values.toNumber(arg));
 		}
 	},
 
@@ -183,6 +213,17 @@ public enum BuiltIn implements TemplateFunction {
 				return Values.range(params.getInt(0), params.getInt(1), params.getInt(2, 1));
 			}
 		}
+
+		@Override
+		public Object apply(Scope scope, Object arg) {
+			return Values.range(Values.toNumber(arg).intValue());
+		}
+
+		@Override
+		public Object apply(Scope scope, Object arg1, Object arg2) {
+			return Values.range(Values.toNumber(arg1).intValue(),
+					Values.toNumber(arg2).intValue(), 1);
+		}
 	},
 
 	/**
@@ -201,7 +242,12 @@ public enum BuiltIn implements TemplateFunction {
 
 		@Override
 		public Object apply(Params params) {
-			return Values.enumerate(params.getIterable(0));
+			return apply(params.scope(), params.get(0));
+		}
+
+		@Override
+		public Object apply(Scope scope, Object arg) {
+			return Values.enumerate(Values.toIterable(arg));
 		}
 	},
 
@@ -256,7 +302,12 @@ public enum BuiltIn implements TemplateFunction {
 
 		@Override
 		public Object apply(Params params) {
-			return params.getMap(0).keySet();
+			return apply(params.scope(), params.get(0));
+		}
+
+		@Override
+		public Object apply(Scope scope, Object arg) {
+			return toMap(arg).keySet();
 		}
 	},
 
@@ -269,7 +320,12 @@ public enum BuiltIn implements TemplateFunction {
 
 		@Override
 		public Object apply(Params params) {
-			return params.getMap(0).values();
+			return apply(params.scope(), params.get(0));
+		}
+
+		@Override
+		public Object apply(Scope scope, Object arg) {
+			return toMap(arg).values();
 		}
 	},
 
@@ -282,7 +338,12 @@ public enum BuiltIn implements TemplateFunction {
 
 		@Override
 		public Object apply(Params params) {
-			return Values.entries(params.getMap(0));
+			return apply(params.scope(), params.get(0));
+		}
+
+		@Override
+		public Object apply(Scope scope, Object arg) {
+			return Values.entries(toMap(arg));
 		}
 	},
 
@@ -298,15 +359,19 @@ public enum BuiltIn implements TemplateFunction {
 
 		@Override
 		public Object apply(Params params) {
-			Object seq = params.get(0);
-			if (seq instanceof String) {
-				return ((String) seq).contains(params.getString(1));
+			return apply(params.scope(), params.get(0), params.get(1));
+		}
+
+		@Override
+		public Object apply(Scope scope, Object arg1, Object arg2) {
+			if (arg1 instanceof CharSequence) {
+				return arg1.toString().contains(String.valueOf(arg2));
 			}
-			if (seq instanceof Collection) {
-				return ((Collection<?>) seq).contains(params.get(1));
+			if (arg1 instanceof Collection) {
+				return ((Collection<?>) arg1).contains(arg2);
 			}
 			throw new TemplateRenderException("%s (%s) is not a container",
-					seq, seq.getClass().getName());
+					arg1, Values.typeName(arg1));
 		}
 	},
 
@@ -320,7 +385,12 @@ public enum BuiltIn implements TemplateFunction {
 
 		@Override
 		public Object apply(Params params) {
-			return Values.capitalize(params.getString(0));
+			return apply(params.scope(), params.get(0));
+		}
+
+		@Override
+		public Object apply(Scope scope, Object arg) {
+			return Values.capitalize(String.valueOf(arg));
 		}
 	},
 
@@ -334,7 +404,12 @@ public enum BuiltIn implements TemplateFunction {
 
 		@Override
 		public Object apply(Params params) {
-			return Values.replace(params.getString(0), params.getString(1), params.getString(2));
+			return apply(params.scope(), params.get(0), params.get(1), params.get(2));
+		}
+
+		@Override
+		public Object apply(Scope scope, Object arg1, Object arg2, Object arg3) {
+			return Values.replace(String.valueOf(arg1), String.valueOf(arg2), String.valueOf(arg3));
 		}
 	},
 
@@ -347,7 +422,12 @@ public enum BuiltIn implements TemplateFunction {
 
 		@Override
 		public Object apply(Params params) {
-			return params.getString(0).startsWith(params.getString(1));
+			return apply(params.scope(), params.get(0), params.get(1));
+		}
+
+		@Override
+		public Object apply(Scope scope, Object arg1, Object arg2) {
+			return String.valueOf(arg1).startsWith(String.valueOf(arg2));
 		}
 	},
 
@@ -360,7 +440,12 @@ public enum BuiltIn implements TemplateFunction {
 
 		@Override
 		public Object apply(Params params) {
-			return params.getString(0).endsWith(params.getString(1));
+			return apply(params.scope(), params.get(0), params.get(1));
+		}
+
+		@Override
+		public Object apply(Scope scope, Object arg1, Object arg2) {
+			return String.valueOf(arg1).endsWith(String.valueOf(arg2));
 		}
 	},
 
@@ -412,7 +497,12 @@ public enum BuiltIn implements TemplateFunction {
 
 		@Override
 		public Object apply(Params params) {
-			return Joiner.on(params.getString(1)).join(Values.toIterable(params.get(0)));
+			return apply(params.scope(), params.get(0), params.get(1));
+		}
+
+		@Override
+		public Object apply(Scope scope, Object arg1, Object arg2) {
+			return Joiner.on(String.valueOf(arg2)).join(Values.toIterable(arg1));
 		}
 	},
 
@@ -459,7 +549,12 @@ public enum BuiltIn implements TemplateFunction {
 
 		@Override
 		public Object apply(Params params) {
-			return params.getString(0).toUpperCase();
+			return apply(params.scope(), params.get(0));
+		}
+
+		@Override
+		public Object apply(Scope scope, Object arg) {
+			return String.valueOf(arg).toUpperCase();
 		}
 	},
 
@@ -472,7 +567,12 @@ public enum BuiltIn implements TemplateFunction {
 
 		@Override
 		public Object apply(Params params) {
-			return params.getString(0).toLowerCase();
+			return apply(params.scope(), params.get(0));
+		}
+
+		@Override
+		public Object apply(Scope scope, Object arg) {
+			return String.valueOf(arg).toLowerCase();
 		}
 	},
 
@@ -486,7 +586,12 @@ public enum BuiltIn implements TemplateFunction {
 
 		@Override
 		public Object apply(Params params) {
-			return CharMatcher.whitespace().trimFrom(params.getString(0));
+			return apply(params.scope(), params.get(0));
+		}
+
+		@Override
+		public Object apply(Scope scope, Object arg) {
+			return CharMatcher.whitespace().trimFrom(String.valueOf(arg));
 		}
 	},
 
@@ -560,6 +665,11 @@ public enum BuiltIn implements TemplateFunction {
 			return Values.pad(params.getString(0), params.getInt(1),
 					params.getChar(2, " "), params.getBoolean(3, true));
 		}
+
+		@Override
+		public Object apply(Scope scope, Object arg1, Object arg2) {
+			return Values.pad(String.valueOf(arg1), Values.toNumber(arg2).intValue(), ' ', true);
+		}
 	},
 
 	/**
@@ -584,6 +694,11 @@ public enum BuiltIn implements TemplateFunction {
 				throw new TemplateRenderException(e);
 			}
 		}
+
+		@Override
+		public boolean isPure() {
+			return false;
+		}
 	},
 
 	/**
@@ -602,6 +717,11 @@ public enum BuiltIn implements TemplateFunction {
 				throw new TemplateRenderException(e);
 			}
 		}
+
+		@Override
+		public boolean isPure() {
+			return false;
+		}
 	},
 
 	/**
@@ -616,6 +736,11 @@ public enum BuiltIn implements TemplateFunction {
 		public Object apply(Params params) {
 			return params.scope().locals();
 		}
+
+		@Override
+		public boolean isPure() {
+			return false;
+		}
 	},
 
 	/**
@@ -631,6 +756,11 @@ public enum BuiltIn implements TemplateFunction {
 		public Object apply(Params params) {
 			return Values.eval(params.getString(0), params.scope());
 		}
+
+		@Override
+		public boolean isPure() {
+			return false;
+		}
 	},
 
 	/**
@@ -649,6 +779,25 @@ public enum BuiltIn implements TemplateFunction {
 		}
 	};
 
+	/**
+	 * Returns whether this function always returns the same result for the
+	 * same arguments, without depending on the scope it is called from. The
+	 * result of a call to a pure function with constant arguments may be
+	 * reused.
+	 */
+	public boolean isPure() {
+		return true;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, ?> toMap(Object value) {
+		if (!(value instanceof Map)) {
+			throw new TemplateRenderException("<%s> (%s) is not a map",
+					value, Values.typeName(value));
+		}
+		return (Map<String, ?>) value;
+	}
+
 	// TODO: other possibilities:
 	// isUpper
 	// isLower
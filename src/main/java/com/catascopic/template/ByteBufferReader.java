@@ -0,0 +1,47 @@
+package com.catascopic.template;
+
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Decodes UTF-8 from a ByteBuffer as it is read, so that a mapped file can be
+ * parsed without copying it to the heap first. Malformed input is replaced,
+ * as by {@link String#String(byte[], java.nio.charset.Charset)}.
+ */
+class ByteBufferReader extends Reader {
+
+	private final ByteBuffer in;
+	private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+			.onMalformedInput(CodingErrorAction.REPLACE)
+			.onUnmappableCharacter(CodingErrorAction.REPLACE);
+	private boolean flushed;
+
+	ByteBufferReader(ByteBuffer in) {
+		this.in = in.duplicate();
+	}
+
+	@Override
+	public int read(char[] cbuf, int off, int len) {
+		if (len == 0) {
+			return 0;
+		}
+		if (flushed) {
+			return -1;
+		}
+		CharBuffer out = CharBuffer.wrap(cbuf, off, len);
+		decoder.decode(in, out, true);
+		if (!in.hasRemaining() && decoder.flush(out).isUnderflow()) {
+			flushed = true;
+		}
+		int count = out.position() - off;
+		return count == 0 && flushed ? -1 : count;
+	}
+
+	@Override
+	public void close() {}
+
+}
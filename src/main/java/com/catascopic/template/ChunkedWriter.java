@@ -0,0 +1,116 @@
+package com.catascopic.template;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes rendered output to a Writer through a buffer of a fixed size, so that
+ * memory use does not grow with the size of the output. A full buffer is
+ * written to the Writer, which blocks if the destination is not keeping up.
+ * The Writer itself is flushed at the end of an iteration of a
+ * <code>for</code> block once at least the given number of characters have
+ * been written since it was last flushed.
+ * <p>
+ * Output is only guaranteed to reach the Writer once {@link #flush()} is
+ * called. The Writer is not closed.
+ */
+public final class ChunkedWriter implements StreamingOutput {
+
+	private static final int DEFAULT_CHUNK_SIZE = 8192;
+
+	private final Writer out;
+	private final char[] buf;
+	private final long flushThreshold;
+	private int count; // = 0
+	private long unflushed; // = 0
+
+	/**
+	 * Creates a ChunkedWriter with the default chunk size that flushes the
+	 * Writer only when {@link #flush()} is called.
+	 */
+	public ChunkedWriter(Writer out) {
+		this(out, DEFAULT_CHUNK_SIZE, Long.MAX_VALUE);
+	}
+
+	/**
+	 * @param chunkSize the size of the buffer, in characters
+	 * @param flushThreshold the number of characters after which the Writer is
+	 *        flushed at the end of an iteration; zero flushes after every
+	 *        iteration
+	 */
+	public ChunkedWriter(Writer out, int chunkSize, long flushThreshold) {
+		if (chunkSize <= 0) {
+			throw new IllegalArgumentException("chunkSize: " + chunkSize);
+		}
+		if (flushThreshold < 0) {
+			throw new IllegalArgumentException("flushThreshold: " + flushThreshold);
+		}
+		this.out = out;
+		this.buf = new char[chunkSize];
+		this.flushThreshold = flushThreshold;
+	}
+
+	@Override
+	public ChunkedWriter append(CharSequence csq) throws IOException {
+		if (csq == null) {
+			csq = "null";
+		}
+		return append(csq, 0, csq.length());
+	}
+
+	@Override
+	public ChunkedWriter append(CharSequence csq, int start, int end) throws IOException {
+		if (csq == null) {
+			csq = "null";
+		}
+		while (start < end) {
+			if (count == buf.length) {
+				writeBuffer();
+			}
+			int length = Math.min(end - start, buf.length - count);
+			if (csq instanceof String) {
+				((String) csq).getChars(start, start + length, buf, count);
+				count += length;
+				start += length;
+			} else {
+				for (int limit = start + length; start < limit; start++) {
+					buf[count++] = csq.charAt(start);
+				}
+			}
+		}
+		return this;
+	}
+
+	@Override
+	public ChunkedWriter append(char c) throws IOException {
+		if (count == buf.length) {
+			writeBuffer();
+		}
+		buf[count++] = c;
+		return this;
+	}
+
+	@Override
+	public void endIteration() throws IOException {
+		if (unflushed + count >= flushThreshold) {
+			flush();
+		}
+	}
+
+	private void writeBuffer() throws IOException {
+		out.write(buf, 0, count);
+		unflushed += count;
+		count = 0;
+	}
+
+	/**
+	 * Writes the buffered output to the Writer, and flushes the Writer.
+	 */
+	@Override
+	public void flush() throws IOException {
+		writeBuffer();
+		out.flush();
+		unflushed = 0;
+	}
+
+}
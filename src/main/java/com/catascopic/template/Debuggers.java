@@ -1,11 +1,20 @@
 package com.catascopic.template;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Standard {@link Debugger}s. They may be shared by concurrent renders; each
+ * message is written whole, and they wait for each other with a
+ * {@link Lock} rather than a monitor, so that a virtual thread that is
+ * waiting does not hold on to its carrier thread.
+ */
 public final class Debuggers {
 	private Debuggers() {}
 
@@ -20,20 +29,43 @@ public final class Debuggers {
 	public static Debugger appendTo(final Appendable appendable) {
 		return new Debugger() {
 
+			private final Lock lock = new ReentrantLock();
+
 			@Override
 			public void print(Location location, String message) throws IOException {
-				appendable.append(location.toString()).append(": ").append(message).append('\n');
+				String line = location + ": " + message + "\n";
+				lock.lock();
+				try {
+					appendable.append(line);
+				} finally {
+					lock.unlock();
+				}
 			}
 		};
 	}
 
+	/**
+	 * Returns a Debugger that appends messages to a file, which is created if
+	 * necessary. The file is opened for each message and closed afterwards.
+	 */
 	public static Debugger appendTo(final Path file) {
 		return new Debugger() {
 
+			private final Lock lock = new ReentrantLock();
+
 			@Override
 			public void print(Location location, String message) throws IOException {
-				Files.write(file, (location + ": " + message + "\n")
-						.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+				ByteBuffer line = ByteBuffer.wrap((location + ": " + message + "\n")
+						.getBytes(StandardCharsets.UTF_8));
+				lock.lock();
+				try (FileChannel channel = FileChannel.open(file,
+						StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+					while (line.hasRemaining()) {
+						channel.write(line);
+					}
+				} finally {
+					lock.unlock();
+				}
 			}
 		};
 	}
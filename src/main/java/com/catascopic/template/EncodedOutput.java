@@ -0,0 +1,19 @@
+package com.catascopic.template;
+
+import java.io.IOException;
+
+/**
+ * An Appendable that can write text that has already been encoded as UTF-8
+ * without encoding it again, such as the static text of a template.
+ *
+ * @see Utf8Output
+ */
+public interface EncodedOutput extends Appendable {
+
+	/**
+	 * Writes the given text, given both as characters and as its UTF-8
+	 * encoding.
+	 */
+	void appendEncoded(CharSequence text, byte[] utf8) throws IOException;
+
+}
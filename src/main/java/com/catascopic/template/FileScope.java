@@ -33,6 +33,22 @@ class FileScope extends Scope {
 		this.engine = parent.engine;
 	}
 
+	private FileScope(Path file, FileScope parent, Map<String, ?> params) {
+		super(parent, params);
+		this.file = file;
+		this.engine = parent.engine;
+	}
+
+	@Override
+	public Settings settings() {
+		return engine.settings();
+	}
+
+	@Override
+	Scope extend() {
+		return new FileScope(file, this);
+	}
+
 	@Override
 	public TemplateFunction getFunction(String name) {
 		return engine.settings().getFunction(name);
@@ -45,12 +61,9 @@ class FileScope extends Scope {
 
 	@Override
 	public String renderTemplate(String path, Map<String, ?> params) {
-		Path resolvedFile = file.resolveSibling(path);
-		Scope extended = new FileScope(resolvedFile, this);
-		extended.setAll(params);
 		StringBuilder builder = new StringBuilder();
 		try {
-			engine.getTemplate(resolvedFile).render(builder, extended);
+			renderTemplate(builder, path, params);
 		} catch (IOException e) {
 			throw new AssertionError(e);
 		}
@@ -58,7 +71,15 @@ class FileScope extends Scope {
 	}
 
 	@Override
-	public String renderTextFile(String path) {
+	public void renderTemplate(Appendable writer, String path, Map<String, ?> params)
+			throws IOException {
+		Path resolvedFile = file.resolveSibling(path);
+		Scope extended = new FileScope(resolvedFile, this, params);
+		engine.getTemplate(resolvedFile).render(writer, extended);
+	}
+
+	@Override
+	public CharSequence renderTextFile(String path) {
 		return engine.getTextFile(file.resolveSibling(path));
 	}
 
@@ -0,0 +1,126 @@
+package com.catascopic.template;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Watches a directory tree for changes on a background thread, and reports
+ * each changed file to a {@link Listener}. A WatchService only watches single
+ * directories, so every directory in the tree is registered, including
+ * directories created after the watcher was started.
+ */
+class FileWatcher implements Closeable {
+
+	/**
+	 * Receives the files reported by a FileWatcher.
+	 */
+	interface Listener {
+
+		/**
+		 * Called when the given files have been created, modified, or
+		 * deleted. The paths are absolute and normalized. A directory that is
+		 * deleted or renamed is reported only by its own path, so every file
+		 * within it should be considered changed.
+		 */
+		void changed(Set<Path> files);
+
+		/**
+		 * Called when events may have been lost, so any file may have changed.
+		 */
+		void overflow();
+	}
+
+	private final WatchService watchService;
+	private final Map<WatchKey, Path> directories = new ConcurrentHashMap<>();
+	private final Listener listener;
+	private final Thread thread;
+
+	FileWatcher(Path root, Listener listener) throws IOException {
+		Path directory = root.toAbsolutePath().normalize();
+		this.watchService = directory.getFileSystem().newWatchService();
+		this.listener = listener;
+		registerAll(directory);
+		this.thread = new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+				processEvents();
+			}
+		}, "template-watcher " + directory);
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	private void registerAll(Path start) throws IOException {
+		Files.walkFileTree(start, new SimpleFileVisitor<Path>() {
+
+			@Override
+			public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs)
+					throws IOException {
+				directories.put(dir.register(watchService,
+						StandardWatchEventKinds.ENTRY_CREATE,
+						StandardWatchEventKinds.ENTRY_MODIFY,
+						StandardWatchEventKinds.ENTRY_DELETE), dir);
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+
+	private void processEvents() {
+		for (;;) {
+			WatchKey key;
+			try {
+				key = watchService.take();
+			} catch (InterruptedException | ClosedWatchServiceException e) {
+				return;
+			}
+			Path dir = directories.get(key);
+			Set<Path> changed = new LinkedHashSet<>();
+			boolean overflow = false;
+			for (WatchEvent<?> event : key.pollEvents()) {
+				if (event.kind() == StandardWatchEventKinds.OVERFLOW || dir == null) {
+					overflow = true;
+					continue;
+				}
+				Path file = dir.resolve((Path) event.context());
+				if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE
+						&& Files.isDirectory(file)) {
+					try {
+						registerAll(file);
+					} catch (IOException e) {
+						// the directory was removed again, or is unreadable
+					}
+				}
+				changed.add(file);
+			}
+			if (!key.reset()) {
+				directories.remove(key);
+			}
+			if (overflow) {
+				listener.overflow();
+			} else if (!changed.isEmpty()) {
+				listener.changed(changed);
+			}
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		watchService.close();
+	}
+
+}
@@ -0,0 +1,110 @@
+package com.catascopic.template;
+
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Ticker;
+
+/**
+ * Determines how often a {@link TemplateEngine} checks whether a cached file
+ * has been modified since it was parsed. Each check reads the file's
+ * modification time, so a policy that checks less often renders with fewer
+ * filesystem calls, at the cost of noticing edits later.
+ * <p>
+ * Regardless of the policy, {@link TemplateEngine#checkModified()} causes
+ * every cached file to be checked once more on its next use.
+ */
+public abstract class Freshness {
+
+	private Freshness() {}
+
+	/**
+	 * Checks the modification time of a file every time it is used.
+	 */
+	public static final Freshness ALWAYS = new Freshness() {
+
+		@Override
+		boolean shouldCheck(long lastChecked) {
+			return true;
+		}
+
+		@Override
+		public String toString() {
+			return "always";
+		}
+	};
+
+	/**
+	 * Never checks the modification time of a cached file, except on demand.
+	 * This is appropriate when template files do not change while the engine
+	 * is running.
+	 */
+	public static final Freshness NEVER = new Freshness() {
+
+		@Override
+		boolean shouldCheck(long lastChecked) {
+			return false;
+		}
+
+		@Override
+		public String toString() {
+			return "never";
+		}
+	};
+
+	/**
+	 * Checks the modification time of a cached file at most once within the
+	 * given duration.
+	 *
+	 * @param duration the minimum time between checks of the same file
+	 * @param unit the unit of the duration
+	 */
+	public static Freshness every(long duration, TimeUnit unit) {
+		return every(duration, unit, Ticker.systemTicker());
+	}
+
+	/**
+	 * Like {@link #every(long, TimeUnit)}, but reads the time from the given
+	 * ticker.
+	 */
+	static Freshness every(long duration, TimeUnit unit, final Ticker ticker) {
+		final long nanos = unit.toNanos(duration);
+		if (nanos <= 0) {
+			return ALWAYS;
+		}
+		return new Freshness() {
+
+			@Override
+			long now() {
+				return ticker.read();
+			}
+
+			@Override
+			boolean shouldCheck(long lastChecked) {
+				return ticker.read() - lastChecked >= nanos;
+			}
+
+			@Override
+			public String toString() {
+				return "every " + nanos + "ns";
+			}
+		};
+	}
+
+	/**
+	 * Returns the current time in nanoseconds, to be passed to
+	 * {@link #shouldCheck(long)} later.
+	 */
+	long now() {
+		return System.nanoTime();
+	}
+
+	/**
+	 * Returns whether a file last checked at the given time should be checked
+	 * again.
+	 *
+	 * @param lastChecked the value of {@link #now()} when the file was last
+	 *        checked
+	 */
+	abstract boolean shouldCheck(long lastChecked);
+
+}
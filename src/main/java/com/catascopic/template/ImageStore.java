@@ -0,0 +1,112 @@
+package com.catascopic.template;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+import com.catascopic.template.parse.Node;
+import com.catascopic.template.parse.NodeCodec;
+import com.catascopic.template.parse.TemplateParser;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+
+/**
+ * A directory of precompiled templates. Each image is named by the SHA-256
+ * hash of the source it was compiled from, so an image is reused whenever the
+ * source is unchanged, even by another process or after the template file was
+ * moved. An image that is missing, from another format version, or corrupt is
+ * replaced by parsing the source again.
+ */
+class ImageStore {
+
+	private static final int MAGIC = 0x54504c49; // "TPLI"
+	private static final int VERSION = 5;
+
+	private final Path directory;
+
+	ImageStore(Path directory) throws IOException {
+		this.directory = Files.createDirectories(directory);
+	}
+
+	Node load(Path file, ByteBuffer source) throws IOException {
+		HashCode hash = Hashing.sha256().hashBytes(source.duplicate());
+		Path image = directory.resolve(hash + ".bin");
+		Node node = read(image, hash, file);
+		if (node == null) {
+			node = parse(file, source);
+			write(image, hash, node);
+		}
+		return node;
+	}
+
+	static Node parse(Path file, byte[] source) throws IOException {
+		return parse(file, ByteBuffer.wrap(source));
+	}
+
+	static Node parse(Path file, ByteBuffer source) throws IOException {
+		return TemplateParser.parse(TrackingReader.create(new ByteBufferReader(source), file));
+	}
+
+	private static Node read(Path image, HashCode hash, Path file) throws IOException {
+		byte[] bytes;
+		try {
+			bytes = Files.readAllBytes(image);
+		} catch (NoSuchFileException e) {
+			return null;
+		}
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+		try {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				return null;
+			}
+			byte[] stored = new byte[hash.bits() / Byte.SIZE];
+			in.readFully(stored);
+			if (!Arrays.equals(stored, hash.asBytes())) {
+				return null;
+			}
+			return NodeCodec.read(in, file);
+		} catch (IOException | RuntimeException e) {
+			// truncated or corrupt
+			return null;
+		}
+	}
+
+	private void write(Path image, HashCode hash, Node node) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		Path temp = null;
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.write(hash.asBytes());
+			NodeCodec.write(node, out);
+			// other processes may be reading the image, so it only appears
+			// once it is complete
+			temp = Files.createTempFile(directory, hash.toString(), ".tmp");
+			Files.write(temp, bytes.toByteArray());
+			Files.move(temp, image, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			// the image is only an optimization; the template has been parsed
+			deleteQuietly(temp);
+		}
+	}
+
+	private static void deleteQuietly(Path file) {
+		if (file != null) {
+			try {
+				Files.deleteIfExists(file);
+			} catch (IOException e) {
+				// leave it
+			}
+		}
+	}
+
+}
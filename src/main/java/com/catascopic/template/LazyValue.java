@@ -0,0 +1,83 @@
+package com.catascopic.template;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.google.common.base.Throwables;
+
+/**
+ * A parameter whose value is computed the first time a template reads it,
+ * rather than before the template is rendered. A template that never reads
+ * the variable, for example because it is only used in an <code>if</code>
+ * branch that is not taken, never computes it.
+ * <p>
+ * The value is computed at most once, even if it is read by concurrent
+ * renders, and is kept for as long as the LazyValue is; a LazyValue in the
+ * parameters of a single render is therefore computed at most once per
+ * render. If computing the value fails, the next read tries again.
+ */
+public final class LazyValue {
+
+	private final Lock lock = new ReentrantLock();
+	private Callable<?> callable;
+	private volatile boolean computed;
+	private Object value;
+
+	private LazyValue(Callable<?> callable) {
+		this.callable = callable;
+	}
+
+	/**
+	 * Returns a LazyValue that is computed by the given callable.
+	 */
+	public static LazyValue of(Callable<?> callable) {
+		return new LazyValue(callable);
+	}
+
+	/**
+	 * Returns the value, computing it if it has not been computed yet.
+	 *
+	 * @throws TemplateRenderException if the callable throws a checked
+	 *         exception
+	 */
+	public Object get() {
+		if (!computed) {
+			lock.lock();
+			try {
+				if (!computed) {
+					value = callable.call();
+					computed = true;
+					callable = null;
+				}
+			} catch (Exception e) {
+				Throwables.throwIfUnchecked(e);
+				throw new TemplateRenderException(e);
+			} finally {
+				lock.unlock();
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * Returns whether the value has been computed.
+	 */
+	public boolean isComputed() {
+		return computed;
+	}
+
+	/**
+	 * Returns the value of the given object if it is a LazyValue, or else the
+	 * object itself.
+	 */
+	static Object resolve(Object value) {
+		return value instanceof LazyValue ? ((LazyValue) value).get() : value;
+	}
+
+	@Override
+	public String toString() {
+		return computed ? "LazyValue[" + value + "]" : "LazyValue[not computed]";
+	}
+
+}
@@ -41,7 +41,7 @@ public final class Location {
 
 	@Override
 	public int hashCode() {
-		return Objects.hash(line, column);
+		return Objects.hash(path, line, column);
 	}
 
 	@Override
@@ -50,7 +50,9 @@ public final class Location {
 			return false;
 		}
 		Location that = (Location) obj;
-		return this.line == that.line && this.column == that.column;
+		return Objects.equals(this.path, that.path)
+				&& this.line == that.line
+				&& this.column == that.column;
 	}
 
 }
@@ -0,0 +1,83 @@
+package com.catascopic.template;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The content of an ASCII text file, backed by a mapping of the file rather
+ * than by a copy on the heap. Since every character is a single byte, the
+ * content is indexed without decoding it, and written to a {@link Utf8Output}
+ * by copying the bytes.
+ */
+final class MappedText implements CharSequence {
+
+	private final ByteBuffer bytes;
+
+	private MappedText(ByteBuffer bytes) {
+		this.bytes = bytes;
+	}
+
+	/**
+	 * Maps the given file into memory.
+	 */
+	static ByteBuffer map(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			return channel.map(MapMode.READ_ONLY, 0, channel.size());
+		}
+	}
+
+	/**
+	 * Returns the content of the given file, as a MappedText if the file is
+	 * ASCII, or else decoded into a String.
+	 */
+	static CharSequence load(Path file) throws IOException {
+		ByteBuffer bytes = map(file);
+		for (int i = bytes.position(); i < bytes.limit(); i++) {
+			if (bytes.get(i) < 0) {
+				return StandardCharsets.UTF_8.decode(bytes).toString();
+			}
+		}
+		return new MappedText(bytes);
+	}
+
+	/**
+	 * Returns a read-only view of the bytes of this text.
+	 */
+	ByteBuffer bytes() {
+		return bytes.asReadOnlyBuffer();
+	}
+
+	@Override
+	public int length() {
+		return bytes.remaining();
+	}
+
+	@Override
+	public char charAt(int index) {
+		if (index < 0 || index >= bytes.remaining()) {
+			throw new IndexOutOfBoundsException("index: " + index);
+		}
+		return (char) bytes.get(bytes.position() + index);
+	}
+
+	@Override
+	public MappedText subSequence(int start, int end) {
+		if (start < 0 || end > bytes.remaining() || start > end) {
+			throw new IndexOutOfBoundsException("start: " + start + ", end: " + end);
+		}
+		ByteBuffer slice = bytes.duplicate();
+		slice.position(bytes.position() + start).limit(bytes.position() + end);
+		return new MappedText(slice.slice());
+	}
+
+	@Override
+	public String toString() {
+		return StandardCharsets.US_ASCII.decode(bytes.duplicate()).toString();
+	}
+
+}
@@ -3,49 +3,252 @@ package com.catascopic.template;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.FileTime;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.LongAdder;
 
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import com.google.common.cache.Weigher;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+/**
+ * A concurrent cache of files parsed into some representation. Lookups of
+ * entries that are already loaded never block. Concurrent misses on the same
+ * file wait for a single parse, while misses on different files are parsed in
+ * parallel.
+ * <p>
+ * The underlying cache only creates a {@link Loader} for a missing file,
+ * while holding a monitor on the new entry. The file is read and parsed by
+ * the first thread to use the Loader, after the monitor is released, and
+ * other threads wait for it with {@link FutureTask#get()}. Neither holds a
+ * monitor while blocked, so virtual threads are not pinned to their carriers.
+ * Since the underlying cache only times the creation of Loaders, the load
+ * statistics are recorded by the Loaders themselves.
+ */
 abstract class ParseCache<T> {
 
-	private Map<Path, CacheEntry> cache;
+	private final LoadingCache<Path, Loader> cache;
+	private final Freshness freshness;
+	private volatile int generation; // = 0
+	private final LongAdder loadSuccessCount = new LongAdder();
+	private final LongAdder loadExceptionCount = new LongAdder();
+	private final LongAdder totalLoadTime = new LongAdder();
+
+	/**
+	 * @param size the maximum number of entries, used if maximumWeight is not
+	 *        positive
+	 * @param maximumWeight the maximum total {@link #weigh weight} of the
+	 *        entries
+	 * @param freshness the policy for checking entries for modification
+	 */
+	protected ParseCache(int size, long maximumWeight, Freshness freshness) {
+		this.freshness = freshness;
+		CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder().recordStats();
+		if (maximumWeight > 0) {
+			builder.maximumWeight(maximumWeight).weigher(new Weigher<Path, Loader>() {
 
-	protected ParseCache(int size) {
-		this.cache = new LruMap<>(size);
+				@Override
+				public int weigh(Path file, Loader loader) {
+					return loader.weight;
+				}
+			});
+		} else {
+			builder.maximumSize(size);
+		}
+		this.cache = builder.build(new CacheLoader<Path, Loader>() {
+
+			@Override
+			public Loader load(Path file) {
+				return new Loader(file);
+			}
+		});
 	}
 
 	T get(Path file) throws IOException {
-		CacheEntry entry;
-		synchronized (cache) {
-			entry = cache.get(file);
-			if (entry == null) {
-				entry = new CacheEntry(file);
-				cache.put(file, entry);
-			} else {
-				entry.refresh(file);
-			}
+		Loader loader = loader(file);
+		CacheEntry entry = loader.get();
+		if (entry.isStale(file)) {
+			// only the first thread to see the stale entry removes it; the
+			// others wait for the same reload
+			cache.asMap().remove(file, loader);
+			entry = loader(file).get();
 		}
 		return entry.parsed;
 	}
 
+	/**
+	 * Causes every entry currently in the cache to be checked for
+	 * modification the next time it is used, regardless of the
+	 * {@link Freshness} policy.
+	 */
+	void checkModified() {
+		generation++;
+	}
+
+	/**
+	 * Removes the entries for the given files, and for all files within the
+	 * given paths that are directories.
+	 *
+	 * @param files absolute, normalized paths
+	 * @return the cache keys of the removed entries
+	 */
+	List<Path> invalidate(Set<Path> files) {
+		List<Path> removed = new ArrayList<>();
+		for (Path key : cache.asMap().keySet()) {
+			if (isWithin(key.toAbsolutePath().normalize(), files)) {
+				cache.invalidate(key);
+				removed.add(key);
+			}
+		}
+		return removed;
+	}
+
+	private static boolean isWithin(Path file, Set<Path> paths) {
+		for (Path path = file; path != null; path = path.getParent()) {
+			if (paths.contains(path)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	void invalidateAll() {
+		cache.invalidateAll();
+	}
+
+	CacheStats stats() {
+		CacheStats stats = cache.stats();
+		return new CacheStats(stats.hitCount(), stats.missCount(),
+				loadSuccessCount.sum(), loadExceptionCount.sum(), totalLoadTime.sum(),
+				stats.evictionCount());
+	}
+
+	/**
+	 * Parses the given files ahead of their next use. Files that cannot be
+	 * parsed are skipped, so that the error is reported when they are used.
+	 */
+	void preload(List<Path> files) {
+		for (Path file : files) {
+			try {
+				loader(file).get();
+			} catch (IOException | RuntimeException e) {
+				// reported on next use
+			}
+		}
+	}
+
+	private Loader loader(Path file) {
+		try {
+			return cache.get(file);
+		} catch (ExecutionException | UncheckedExecutionException | ExecutionError e) {
+			// creating a Loader does not fail
+			throw new AssertionError(e);
+		}
+	}
+
 	protected abstract T parse(Path file) throws IOException;
 
+	/**
+	 * Returns the approximate number of bytes retained by a parsed file.
+	 *
+	 * @param parsed the parsed file
+	 * @param fileSize the size of the file in bytes
+	 */
+	protected abstract int weigh(T parsed, long fileSize);
+
+	/**
+	 * Parses a file once, for every thread that asks for it.
+	 */
+	private class Loader {
+
+		private final Path file;
+		private final FutureTask<CacheEntry> task;
+		// zero until the file is parsed
+		volatile int weight;
+
+		Loader(final Path file) {
+			this.file = file;
+			this.task = new FutureTask<>(new Callable<CacheEntry>() {
+
+				@Override
+				public CacheEntry call() throws IOException {
+					long start = System.nanoTime();
+					CacheEntry entry;
+					try {
+						entry = new CacheEntry(file);
+					} catch (IOException | RuntimeException | Error e) {
+						loadExceptionCount.increment();
+						throw e;
+					} finally {
+						totalLoadTime.add(System.nanoTime() - start);
+					}
+					loadSuccessCount.increment();
+					weight = entry.weight;
+					// weigh the entry again now that its size is known
+					cache.asMap().replace(file, Loader.this, Loader.this);
+					return entry;
+				}
+			});
+		}
+
+		CacheEntry get() throws IOException {
+			// parses the file, unless another thread already has or is
+			task.run();
+			try {
+				return Uninterruptibles.getUninterruptibly(task);
+			} catch (ExecutionException e) {
+				// the next use tries again
+				cache.asMap().remove(file, this);
+				Throwables.throwIfInstanceOf(e.getCause(), IOException.class);
+				Throwables.throwIfUnchecked(e.getCause());
+				throw new AssertionError(e);
+			}
+		}
+	}
+
 	private class CacheEntry {
 
-		T parsed;
-		FileTime modified;
+		final T parsed;
+		final FileTime modified;
+		final int weight;
+		// written without synchronization; a lost update costs an extra check
+		volatile long checked;
+		volatile int checkedGeneration;
 
 		CacheEntry(Path file) throws IOException {
+			checkedGeneration = generation;
+			checked = freshness.now();
+			// read the time first so a change during parsing is not missed
+			BasicFileAttributes attributes =
+					Files.readAttributes(file, BasicFileAttributes.class);
+			modified = attributes.lastModifiedTime();
 			parsed = parse(file);
-			modified = Files.getLastModifiedTime(file);
+			weight = weigh(parsed, attributes.size());
 		}
 
-		void refresh(Path file) throws IOException {
-			FileTime fileTime = Files.getLastModifiedTime(file);
-			if (!fileTime.equals(modified)) {
-				parsed = parse(file);
-				modified = fileTime;
+		boolean isStale(Path file) throws IOException {
+			int current = generation;
+			if (checkedGeneration == current && !freshness.shouldCheck(checked)) {
+				return false;
+			}
+			if (!Files.getLastModifiedTime(file).equals(modified)) {
+				return true;
 			}
+			checkedGeneration = current;
+			checked = freshness.now();
+			return false;
 		}
 	}
 
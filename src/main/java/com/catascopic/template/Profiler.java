@@ -0,0 +1,335 @@
+package com.catascopic.template;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records how often each <code>${...}</code>, <code>for</code>, and
+ * <code>include</code> tag and each top-level expression of a template is
+ * executed, how long it takes, and how many characters it writes, by the
+ * {@link Location} of the tag or expression. A Profiler is enabled by
+ * {@link Settings.Builder#setProfiler(Profiler)}, and may be shared by
+ * concurrent renders.
+ * <p>
+ * The time of a tag includes the time of the tags and expressions within it.
+ * {@link #writeCollapsedStacks(Appendable)} writes the time of each tag
+ * excluding those within it, in the format read by flame graph tools.
+ */
+public final class Profiler {
+
+	private final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, LongAdder> stacks = new ConcurrentHashMap<>();
+	private final ThreadLocal<Frame> current = new ThreadLocal<>();
+
+	/**
+	 * Starts timing a tag or expression. Every call must be followed by a
+	 * call to {@link #exit(Frame, Appendable)} on the same thread, even if
+	 * rendering fails.
+	 *
+	 * @param label the kind of tag or expression
+	 * @param writer the writer the tag renders to, or null
+	 */
+	public Frame enter(String label, Location location, Appendable writer) {
+		Frame frame = new Frame(current.get(), label, location, written(writer));
+		current.set(frame);
+		return frame;
+	}
+
+	/**
+	 * Stops timing a tag or expression and records the result.
+	 */
+	public void exit(Frame frame, Appendable writer) {
+		long elapsed = System.nanoTime() - frame.start;
+		current.set(frame.parent);
+		if (frame.parent != null) {
+			Frame.CHILDREN.addAndGet(frame.parent, elapsed);
+		}
+		String key = frame.label + " " + frame.location;
+		Counter counter = counters.get(key);
+		if (counter == null) {
+			Counter created = new Counter(frame.label, frame.location);
+			counter = counters.putIfAbsent(key, created);
+			if (counter == null) {
+				counter = created;
+			}
+		}
+		counter.count.increment();
+		counter.nanos.add(elapsed);
+		counter.output.add(written(writer) - frame.written);
+		LongAdder self = stacks.get(frame.stack);
+		if (self == null) {
+			LongAdder created = new LongAdder();
+			self = stacks.putIfAbsent(frame.stack, created);
+			if (self == null) {
+				self = created;
+			}
+		}
+		// the tags of a parallel loop may take longer in total than the loop
+		self.add(Math.max(0, elapsed - frame.children));
+	}
+
+	/**
+	 * Returns the innermost tag being timed on this thread, or null.
+	 */
+	public Frame current() {
+		return current.get();
+	}
+
+	/**
+	 * Makes the given tag the innermost one being timed on this thread, so
+	 * that part of it can be rendered on a thread other than the one that
+	 * entered it, and returns the tag that was innermost before. That tag must
+	 * be restored with this method when the part is rendered.
+	 *
+	 * @param frame a tag returned by {@link #current()}, or null
+	 */
+	public Frame attach(Frame frame) {
+		Frame previous = current.get();
+		current.set(frame);
+		return previous;
+	}
+
+	/**
+	 * Returns a writer that counts the characters written to the given
+	 * writer, so that the output of tags rendered to a buffer of their own is
+	 * recorded.
+	 */
+	public Appendable counting(Appendable writer) {
+		return new CountingOutput(writer);
+	}
+
+	/**
+	 * Returns what has been recorded so far, with the tags and expressions
+	 * that took the most time first.
+	 */
+	public List<Sample> samples() {
+		List<Sample> samples = new ArrayList<>();
+		for (Counter counter : counters.values()) {
+			samples.add(new Sample(counter.label, counter.location,
+					counter.count.sum(), counter.nanos.sum(), counter.output.sum()));
+		}
+		Collections.sort(samples, new Comparator<Sample>() {
+
+			@Override
+			public int compare(Sample s1, Sample s2) {
+				return Long.compare(s2.nanos, s1.nanos);
+			}
+		});
+		return samples;
+	}
+
+	/**
+	 * Writes one line for each distinct stack of nested tags and
+	 * expressions, consisting of the frames of the stack separated by
+	 * semicolons, a space, and the nanoseconds spent in the innermost frame
+	 * itself. This is the input format of <code>flamegraph.pl</code> and
+	 * compatible tools.
+	 */
+	public void writeCollapsedStacks(Appendable writer) throws IOException {
+		Map<String, Long> sorted = new TreeMap<>();
+		for (Map.Entry<String, LongAdder> entry : stacks.entrySet()) {
+			sorted.put(entry.getKey(), entry.getValue().sum());
+		}
+		for (Map.Entry<String, Long> entry : sorted.entrySet()) {
+			writer.append(entry.getKey()).append(' ')
+					.append(String.valueOf(entry.getValue())).append('\n');
+		}
+	}
+
+	/**
+	 * Discards everything recorded so far.
+	 */
+	public void reset() {
+		counters.clear();
+		stacks.clear();
+	}
+
+	/**
+	 * Returns a writer that counts the characters written to the given
+	 * writer, if the settings have a profiler, or else the writer itself.
+	 */
+	static Appendable instrument(Appendable writer, Settings settings) {
+		return settings.profiler() == null ? writer : new CountingOutput(writer);
+	}
+
+	private static long written(Appendable writer) {
+		return writer instanceof CountingOutput ? ((CountingOutput) writer).count : 0;
+	}
+
+	private static String frameName(String label, Location location) {
+		Path path = location.path();
+		String file = path == null ? "[local source]" : String.valueOf(path.getFileName());
+		return (label + " " + file + ":" + (location.line() + 1) + ":" + (location.column() + 1))
+				.replace(';', ',');
+	}
+
+	/**
+	 * A tag or expression that is being timed.
+	 */
+	public static final class Frame {
+
+		final Frame parent;
+		final String label;
+		final Location location;
+		final String stack;
+		final long written;
+		final long start;
+		// added to by the threads of a parallel loop
+		volatile long children; // = 0
+
+		static final AtomicLongFieldUpdater<Frame> CHILDREN =
+				AtomicLongFieldUpdater.newUpdater(Frame.class, "children");
+
+		Frame(Frame parent, String label, Location location, long written) {
+			this.parent = parent;
+			this.label = label;
+			this.location = location;
+			String name = frameName(label, location);
+			this.stack = parent == null ? name : parent.stack + ";" + name;
+			this.written = written;
+			this.start = System.nanoTime();
+		}
+	}
+
+	/**
+	 * The totals recorded for a tag or expression.
+	 */
+	public static final class Sample {
+
+		private final String label;
+		private final Location location;
+		private final long count;
+		private final long nanos;
+		private final long output;
+
+		Sample(String label, Location location, long count, long nanos, long output) {
+			this.label = label;
+			this.location = location;
+			this.count = count;
+			this.nanos = nanos;
+			this.output = output;
+		}
+
+		/**
+		 * Returns the kind of tag or expression, such as <code>for</code>.
+		 */
+		public String label() {
+			return label;
+		}
+
+		public Location location() {
+			return location;
+		}
+
+		/**
+		 * Returns the number of times the tag or expression was executed.
+		 */
+		public long count() {
+			return count;
+		}
+
+		/**
+		 * Returns the total time spent in the tag or expression, including
+		 * the tags and expressions within it.
+		 */
+		public long nanos() {
+			return nanos;
+		}
+
+		/**
+		 * Returns the total number of characters the tag wrote to the output
+		 * of the render, which is zero for an expression.
+		 */
+		public long output() {
+			return output;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%s at %s: %d times, %d ns, %d chars",
+					label, location, count, nanos, output);
+		}
+	}
+
+	private static class Counter {
+
+		final String label;
+		final Location location;
+		final LongAdder count = new LongAdder();
+		final LongAdder nanos = new LongAdder();
+		final LongAdder output = new LongAdder();
+
+		Counter(String label, Location location) {
+			this.label = label;
+			this.location = location;
+		}
+	}
+
+	// forwards encoded text, and text mapped from a file, to a Utf8Output
+	private static class CountingOutput implements StreamingOutput, EncodedOutput {
+
+		private final Appendable out;
+		long count; // = 0
+
+		CountingOutput(Appendable out) {
+			this.out = out;
+		}
+
+		@Override
+		public CountingOutput append(CharSequence csq) throws IOException {
+			out.append(csq);
+			count += csq == null ? 4 : csq.length();
+			return this;
+		}
+
+		@Override
+		public void appendEncoded(CharSequence text, byte[] utf8) throws IOException {
+			if (out instanceof EncodedOutput) {
+				((EncodedOutput) out).appendEncoded(text, utf8);
+			} else {
+				out.append(text);
+			}
+			count += text.length();
+		}
+
+		@Override
+		public CountingOutput append(CharSequence csq, int start, int end) throws IOException {
+			out.append(csq, start, end);
+			count += end - start;
+			return this;
+		}
+
+		@Override
+		public CountingOutput append(char c) throws IOException {
+			out.append(c);
+			count++;
+			return this;
+		}
+
+		@Override
+		public void endIteration() throws IOException {
+			if (out instanceof StreamingOutput) {
+				((StreamingOutput) out).endIteration();
+			}
+		}
+
+		@Override
+		public void flush() throws IOException {
+			if (out instanceof Flushable) {
+				((Flushable) out).flush();
+			}
+		}
+	}
+
+}
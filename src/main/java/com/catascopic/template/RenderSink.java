@@ -0,0 +1,20 @@
+package com.catascopic.template;
+
+import java.io.IOException;
+
+/**
+ * Receives the output of each render of a batch.
+ *
+ * @param <T> the type of the parameters of each render
+ * @see Template#renderAll(java.util.Iterator, RenderSink)
+ */
+public interface RenderSink<T> {
+
+	/**
+	 * Called with the output of rendering the template with the given
+	 * parameters. The output is a buffer that is reused for the next render,
+	 * so it must be copied or written out before this method returns.
+	 */
+	void accept(T params, CharSequence output) throws IOException;
+
+}
@@ -5,30 +5,133 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import com.catascopic.template.Slots.Slot;
+
 /**
  * A Scope contains all necessary information for rendering a Template.
  */
 public abstract class Scope implements Context, LocalAccess {
 
+	private static final Object UNSET = new Object();
+
 	private final LocalAccess parent;
-	private Map<String, Object> locals = new HashMap<>();
+	// the caller's parameters, which are read in place rather than copied; a
+	// variable that is set shadows the parameter of the same name
+	private Map<String, ?> params;
+	// created when the first variable without a slot is set
+	private Map<String, Object> locals;
+	// variables with a slot in the bound template are held in the frame, and
+	// all others in locals
+	private Slots slots;
+	private Object[] frame;
 
 	Scope(LocalAccess parent) {
 		this.parent = parent;
 	}
 
+	/**
+	 * Creates a scope whose variables are initially the given parameters. The
+	 * map is not copied, and must not be changed while the scope is in use.
+	 */
+	Scope(LocalAccess parent, Map<String, ?> params) {
+		this.parent = parent;
+		this.params = params;
+	}
+
 	Scope(Map<String, ?> params) {
-		this(EmptyLocalAccess.EMPTY_LOCAL_ACCESS);
-		locals.putAll(params);
+		this(EmptyLocalAccess.EMPTY_LOCAL_ACCESS, params);
+	}
+
+	/**
+	 * Binds this scope to the slots of the template it renders. Variables of
+	 * this scope that have a slot are moved into it, parameters that have a
+	 * slot are copied into it, and the template's {@link Slot}s then read and
+	 * write them directly. Parameters that the template does not refer to by
+	 * name are never copied.
+	 * 
+	 * @param bound the slots of the template
+	 */
+	public final void bind(Slots bound) {
+		if (bound == slots) {
+			return;
+		}
+		if (slots != null) {
+			for (int i = 0; i < frame.length; i++) {
+				if (frame[i] != UNSET) {
+					writableLocals().put(slots.get(i).name, frame[i]);
+				}
+			}
+		}
+		slots = bound;
+		frame = new Object[bound.size()];
+		fillFrame();
+	}
+
+	private void fillFrame() {
+		for (int i = 0; i < frame.length; i++) {
+			String name = slots.get(i).name;
+			if (locals != null && locals.containsKey(name)) {
+				frame[i] = locals.remove(name);
+			} else {
+				frame[i] = lookup(params, name);
+			}
+		}
+	}
+
+	/**
+	 * Returns the value of a variable in the given map, or UNSET if it is not
+	 * there.
+	 */
+	private static Object lookup(Map<String, ?> map, String name) {
+		if (map == null) {
+			return UNSET;
+		}
+		Object value = map.get(name);
+		if (value == null && !map.containsKey(name)) {
+			return UNSET;
+		}
+		return value;
+	}
+
+	private Map<String, Object> writableLocals() {
+		if (locals == null) {
+			locals = new HashMap<>();
+		}
+		return locals;
 	}
 
 	@Override
 	public final Object get(String name) {
-		Object value = locals.get(name);
-		if (value == null && !locals.containsKey(name)) {
-			return parent.get(name);
+		if (slots != null) {
+			Slot slot = slots.find(name);
+			if (slot != null && frame[slot.index] != UNSET) {
+				return LazyValue.resolve(frame[slot.index]);
+			}
 		}
-		return value;
+		Object value = lookup(locals, name);
+		if (value == UNSET) {
+			value = lookup(params, name);
+			if (value == UNSET) {
+				value = parent.get(name);
+			}
+		}
+		return LazyValue.resolve(value);
+	}
+
+	/**
+	 * Gets the value of a variable by its slot, if this scope is bound to the
+	 * slot's template, or else by its name.
+	 * 
+	 * @param slot the slot of the variable
+	 */
+	public final Object get(Slot slot) {
+		if (slot.slots == slots) {
+			Object value = frame[slot.index];
+			if (value != UNSET) {
+				return LazyValue.resolve(value);
+			}
+		}
+		return get(slot.name);
 	}
 
 	/**
@@ -38,7 +141,29 @@ public abstract class Scope implements Context, LocalAccess {
 	 * @param value the value of the variable
 	 */
 	public final void set(String name, Object value) {
-		locals.put(name, value);
+		if (slots != null) {
+			Slot slot = slots.find(name);
+			if (slot != null) {
+				frame[slot.index] = value;
+				return;
+			}
+		}
+		writableLocals().put(name, value);
+	}
+
+	/**
+	 * Sets the value of a variable within this scope by its slot, if this
+	 * scope is bound to the slot's template, or else by its name.
+	 * 
+	 * @param slot the slot of the variable
+	 * @param value the value of the variable
+	 */
+	public final void set(Slot slot, Object value) {
+		if (slot.slots == slots) {
+			frame[slot.index] = value;
+		} else {
+			set(slot.name, value);
+		}
 	}
 
 	/**
@@ -47,16 +172,38 @@ public abstract class Scope implements Context, LocalAccess {
 	 * @param values the map of name-value pairs
 	 */
 	public final void setAll(Map<String, ?> values) {
-		locals.putAll(values);
+		if (slots == null) {
+			writableLocals().putAll(values);
+		} else {
+			for (Map.Entry<String, ?> entry : values.entrySet()) {
+				set(entry.getKey(), entry.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Discards the variables of this scope and sets the given ones instead,
+	 * so that the scope can render its template again. The scope stays bound
+	 * to the slots of the template.
+	 */
+	final void reset(Map<String, ?> params) {
+		this.params = params;
+		locals = null;
+		if (frame != null) {
+			fillFrame();
+		}
 	}
 
 	/**
 	 * Returns a Map containing the names and values of all variables accessible
-	 * by this scope.
+	 * by this scope. Any {@link LazyValue}s among them are computed.
 	 */
 	public final Map<String, Object> locals() {
 		Map<String, Object> collected = new HashMap<>();
 		collect(collected);
+		for (Map.Entry<String, Object> entry : collected.entrySet()) {
+			entry.setValue(LazyValue.resolve(entry.getValue()));
+		}
 		return collected;
 	}
 
@@ -67,7 +214,19 @@ public abstract class Scope implements Context, LocalAccess {
 	@Override
 	public final void collect(Map<String, Object> collected) {
 		parent.collect(collected);
-		collected.putAll(locals);
+		if (params != null) {
+			collected.putAll(params);
+		}
+		if (locals != null) {
+			collected.putAll(locals);
+		}
+		if (slots != null) {
+			for (int i = 0; i < frame.length; i++) {
+				if (frame[i] != UNSET) {
+					collected.put(slots.get(i).name, frame[i]);
+				}
+			}
+		}
 	}
 
 	@Override
@@ -75,6 +234,25 @@ public abstract class Scope implements Context, LocalAccess {
 		return getFunction(functionName).apply(new Params(arguments, this));
 	}
 
+	/**
+	 * Returns a new scope for rendering part of this scope's template on
+	 * another thread. The new scope reads the variables of this scope, which
+	 * must not be changed while it is in use, but variables set in it are not
+	 * visible in this scope.
+	 */
+	public final Scope fork() {
+		Scope child = extend();
+		if (slots != null) {
+			child.bind(slots);
+		}
+		return child;
+	}
+
+	/**
+	 * Returns a new, empty scope whose parent is this scope.
+	 */
+	abstract Scope extend();
+
 	/**
 	 * Returns the TemplateFunction associated with the given name.
 	 * 
@@ -82,9 +260,29 @@ public abstract class Scope implements Context, LocalAccess {
 	 */
 	abstract TemplateFunction getFunction(String name);
 
+	/**
+	 * Returns the settings this scope is rendered with.
+	 */
+	public abstract Settings settings();
+
+	/**
+	 * Returns the profiler of this scope's settings, or null if profiling is
+	 * not enabled.
+	 */
+	public final Profiler profiler() {
+		return settings().profiler();
+	}
+
 	public abstract String renderTemplate(String path, Map<String, ?> params) throws IOException;
 
-	public abstract String renderTextFile(String path) throws IOException;
+	/**
+	 * Renders the template at the given path directly to the given writer,
+	 * without building an intermediate string.
+	 */
+	public abstract void renderTemplate(Appendable writer, String path, Map<String, ?> params)
+			throws IOException;
+
+	public abstract CharSequence renderTextFile(String path) throws IOException;
 
 	public abstract void print(Location location, String message) throws IOException;
 
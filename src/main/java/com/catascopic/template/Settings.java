@@ -3,6 +3,7 @@ package com.catascopic.template;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 import com.catascopic.template.value.Values;
 import com.google.common.collect.ImmutableMap;
@@ -17,13 +18,23 @@ public class Settings {
 
 	private final Map<String, TemplateFunction> functions;
 	private final Debugger debugger;
+	private final Profiler profiler;
+	private final ForkJoinPool pool;
 
-	Settings(Map<String, TemplateFunction> functions, Debugger debugger) {
+	Settings(Map<String, TemplateFunction> functions, Debugger debugger, Profiler profiler,
+			ForkJoinPool pool) {
 		this.functions = functions;
 		this.debugger = debugger;
+		this.profiler = profiler;
+		this.pool = pool;
 	}
 
-	TemplateFunction getFunction(String name) {
+	/**
+	 * Returns the function with the given name.
+	 * 
+	 * @throws TemplateRenderException if the function does not exist
+	 */
+	public TemplateFunction getFunction(String name) {
 		TemplateFunction function = functions.get(name);
 		if (function == null) {
 			throw new TemplateRenderException("undefined function %s", name);
@@ -31,6 +42,22 @@ public class Settings {
 		return function;
 	}
 
+	/**
+	 * Returns the profiler that renders with these settings report to, or null
+	 * if profiling is not enabled.
+	 */
+	public Profiler profiler() {
+		return profiler;
+	}
+
+	/**
+	 * Returns the pool that renders the iterations of
+	 * <code>for parallel</code> blocks.
+	 */
+	public ForkJoinPool forkJoinPool() {
+		return pool;
+	}
+
 	void print(Location location, String message) throws IOException {
 		debugger.print(location, message);
 	}
@@ -49,6 +76,8 @@ public class Settings {
 		// Use HashMap so functions can be replaced
 		private Map<String, TemplateFunction> functions = new HashMap<>();
 		private Debugger debugger = Debuggers.STANDARD_OUTPUT;
+		private Profiler profiler; // = null
+		private ForkJoinPool pool = ForkJoinPool.commonPool();
 
 		public <F extends Enum<F> & TemplateFunction> Builder addFunctions(Class<F> functionEnum) {
 			for (F function : functionEnum.getEnumConstants()) {
@@ -72,8 +101,27 @@ public class Settings {
 			return this;
 		}
 
+		/**
+		 * Enables profiling of every render with these settings. Profiling
+		 * adds overhead to every tag, so it should only be enabled to find
+		 * out where time is spent.
+		 */
+		public Builder setProfiler(Profiler profiler) {
+			this.profiler = profiler;
+			return this;
+		}
+
+		/**
+		 * Sets the pool that renders the iterations of
+		 * <code>for parallel</code> blocks. The default is the common pool.
+		 */
+		public Builder setForkJoinPool(ForkJoinPool pool) {
+			this.pool = pool;
+			return this;
+		}
+
 		public Settings build() {
-			return new Settings(ImmutableMap.copyOf(functions), debugger);
+			return new Settings(ImmutableMap.copyOf(functions), debugger, profiler, pool);
 		}
 	}
 
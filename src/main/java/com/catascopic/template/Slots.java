@@ -0,0 +1,91 @@
+package com.catascopic.template;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The variables referenced by a template, each numbered with a slot in a flat
+ * array. A {@link Scope} that is {@link Scope#bind(Slots) bound} to the slots
+ * of a template holds the values of those variables in the array, so that the
+ * template can read and write them by index rather than looking them up by
+ * name.
+ * <p>
+ * Slots are added while a template is parsed, and are not modified after
+ * parsing is complete.
+ */
+public final class Slots {
+
+	private final Map<String, Slot> byName = new HashMap<>();
+	private final List<Slot> slots = new ArrayList<>();
+
+	/**
+	 * Returns the slot of the given variable, adding it if it does not exist.
+	 */
+	public Slot slot(String name) {
+		Slot slot = byName.get(name);
+		if (slot == null) {
+			slot = new Slot(this, slots.size(), name);
+			byName.put(name, slot);
+			slots.add(slot);
+		}
+		return slot;
+	}
+
+	/**
+	 * Returns the names of the variables, in slot order.
+	 */
+	public List<String> names() {
+		List<String> names = new ArrayList<>(slots.size());
+		for (Slot slot : slots) {
+			names.add(slot.name);
+		}
+		return names;
+	}
+
+	int size() {
+		return slots.size();
+	}
+
+	Slot get(int index) {
+		return slots.get(index);
+	}
+
+	Slot find(String name) {
+		return byName.get(name);
+	}
+
+	@Override
+	public String toString() {
+		return "slots" + names();
+	}
+
+	/**
+	 * A variable with a numbered slot. The slot is only used by a scope bound
+	 * to the same {@link Slots}; any other scope looks the variable up by
+	 * name.
+	 */
+	public static final class Slot {
+
+		final Slots slots;
+		final int index;
+		final String name;
+
+		Slot(Slots slots, int index, String name) {
+			this.slots = slots;
+			this.index = index;
+			this.name = name;
+		}
+
+		public String name() {
+			return name;
+		}
+
+		@Override
+		public String toString() {
+			return name;
+		}
+	}
+
+}
@@ -0,0 +1,23 @@
+package com.catascopic.template;
+
+import java.io.Flushable;
+import java.io.IOException;
+
+/**
+ * An Appendable that writes through to some destination as a template is
+ * rendered, instead of holding the whole output. A template notifies it at the
+ * end of each iteration of a <code>for</code> block, which is where it may
+ * flush, so that the output of a long loop reaches its destination in
+ * complete records.
+ *
+ * @see ChunkedWriter
+ * @see Utf8Output
+ */
+public interface StreamingOutput extends Appendable, Flushable {
+
+	/**
+	 * Called after each iteration of a <code>for</code> block.
+	 */
+	void endIteration() throws IOException;
+
+}
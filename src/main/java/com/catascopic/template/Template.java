@@ -1,16 +1,28 @@
 package com.catascopic.template;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Reader;
 import java.io.StringReader;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import com.catascopic.template.parse.Node;
 import com.catascopic.template.parse.TemplateParser;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.Uninterruptibles;
 
 public class Template {
 
@@ -67,11 +79,115 @@ public class Template {
 	}
 
 	public void render(Appendable writer, Map<String, ? extends Object> params) throws IOException {
-		node.render(writer, newScope(params));
+		render(writer, newScope(params));
 	}
 
 	public void render(Appendable writer, LocalAccess params) throws IOException {
-		node.render(writer, newScope(params));
+		render(writer, newScope(params));
+	}
+
+	/**
+	 * Renders this template to a stream as UTF-8. Static text is encoded
+	 * once and copied as bytes on every render. The stream is flushed but not
+	 * closed.
+	 */
+	public void render(OutputStream out, Map<String, ? extends Object> params) throws IOException {
+		render(out, newScope(params));
+	}
+
+	/**
+	 * Renders this template to a stream as UTF-8. Static text is encoded
+	 * once and copied as bytes on every render. The stream is flushed but not
+	 * closed.
+	 */
+	public void render(OutputStream out, LocalAccess params) throws IOException {
+		render(out, newScope(params));
+	}
+
+	/**
+	 * Renders this template once for each of the given parameter maps, in
+	 * order, and passes each output to the sink. One scope and one output
+	 * buffer are reused for all of the renders.
+	 *
+	 * @param inputs the parameters of each render, none of which is null
+	 * @param sink receives the output of each render
+	 * @throws IOException if the sink throws IOException
+	 * @throws NullPointerException if any of the parameters are null
+	 */
+	public <T extends Map<String, ?>> void renderAll(Iterator<? extends T> inputs,
+			RenderSink<? super T> sink) throws IOException {
+		new BatchRenderer<T>(new Batch<T>(inputs, sink)).call();
+	}
+
+	/**
+	 * Renders this template once for each of the given parameter maps, and
+	 * passes each output to the sink. The renders are divided among the given
+	 * number of tasks submitted to the executor, each of which takes the next
+	 * parameters from the iterator and reuses one scope and one output buffer,
+	 * and this method returns when all of them are complete. The sink is
+	 * called by the tasks concurrently, in no particular order.
+	 * <p>
+	 * If a render or the sink fails, or the executor rejects a task, the
+	 * remaining parameters are not rendered, and this method returns once the
+	 * tasks already submitted are complete. The first failure is thrown, and
+	 * the failures of other tasks are added to it as suppressed exceptions.
+	 *
+	 * @param inputs the parameters of each render, none of which is null
+	 * @param sink receives the output of each render, and must be thread-safe
+	 * @param executor the executor that renders the template, such as one that
+	 *        starts a virtual thread per task
+	 * @param parallelism the number of tasks to submit, which is positive
+	 * @throws IOException if the sink throws IOException
+	 * @throws NullPointerException if any of the parameters are null
+	 * @throws java.util.concurrent.RejectedExecutionException if the executor
+	 *         rejects a task
+	 */
+	public <T extends Map<String, ?>> void renderAll(Iterator<? extends T> inputs,
+			RenderSink<? super T> sink, Executor executor, int parallelism)
+			throws IOException {
+		if (parallelism <= 0) {
+			throw new IllegalArgumentException("parallelism: " + parallelism);
+		}
+		Batch<T> batch = new Batch<>(inputs, sink);
+		List<FutureTask<Void>> tasks = new ArrayList<>(parallelism);
+		Throwable failure = null;
+		try {
+			for (int i = 0; i < parallelism; i++) {
+				FutureTask<Void> task = new FutureTask<>(new BatchRenderer<>(batch));
+				executor.execute(task);
+				tasks.add(task);
+			}
+		} catch (RuntimeException | Error e) {
+			// stop the tasks that were submitted, and wait for them below
+			batch.fail();
+			failure = e;
+		}
+		for (FutureTask<Void> task : tasks) {
+			try {
+				Uninterruptibles.getUninterruptibly(task);
+			} catch (ExecutionException e) {
+				if (failure == null) {
+					failure = e.getCause();
+				} else {
+					failure.addSuppressed(e.getCause());
+				}
+			}
+		}
+		if (failure != null) {
+			Throwables.throwIfInstanceOf(failure, IOException.class);
+			Throwables.throwIfUnchecked(failure);
+			throw new AssertionError(failure);
+		}
+	}
+
+	private void render(OutputStream out, Scope scope) throws IOException {
+		Utf8Output output = new Utf8Output(out);
+		render(output, scope);
+		output.flush();
+	}
+
+	private void render(Appendable writer, Scope scope) throws IOException {
+		node.render(Profiler.instrument(writer, settings), scope);
 	}
 
 	private Scope newScope(Map<String, ?> params) {
@@ -85,7 +201,7 @@ public class Template {
 	private String render(Scope scope) {
 		StringBuilder builder = new StringBuilder();
 		try {
-			node.render(builder, scope);
+			render(builder, scope);
 		} catch (IOException e) {
 			throw new AssertionError(e);
 		}
@@ -97,4 +213,85 @@ public class Template {
 		return node.toString();
 	}
 
+	/**
+	 * The parameters and sink shared by the tasks of a batch render. The
+	 * iterator is guarded by a {@link Lock} rather than a monitor, since it
+	 * may block, and a virtual thread that blocks while holding a monitor
+	 * holds on to its carrier thread.
+	 */
+	private static class Batch<T> {
+
+		final Iterator<? extends T> inputs;
+		final RenderSink<? super T> sink;
+		private final Lock lock = new ReentrantLock();
+		private volatile boolean failed;
+
+		Batch(Iterator<? extends T> inputs, RenderSink<? super T> sink) {
+			this.inputs = inputs;
+			this.sink = sink;
+		}
+
+		/**
+		 * Returns the next parameters to render, or null if there are no more
+		 * or a render has failed.
+		 *
+		 * @throws NullPointerException if the next parameters are null
+		 */
+		T next() {
+			lock.lock();
+			try {
+				if (failed || !inputs.hasNext()) {
+					return null;
+				}
+				T params = inputs.next();
+				if (params == null) {
+					throw new NullPointerException("null parameters in batch");
+				}
+				return params;
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		void fail() {
+			failed = true;
+		}
+	}
+
+	/**
+	 * Renders parameters from a batch until there are none left, reusing a
+	 * scope and an output buffer.
+	 */
+	private class BatchRenderer<T extends Map<String, ?>> implements Callable<Void> {
+
+		private final Batch<T> batch;
+
+		BatchRenderer(Batch<T> batch) {
+			this.batch = batch;
+		}
+
+		@Override
+		public Void call() throws IOException {
+			StringBuilder builder = new StringBuilder();
+			Appendable writer = Profiler.instrument(builder, settings);
+			Scope scope = null;
+			try {
+				for (T params; (params = batch.next()) != null;) {
+					if (scope == null) {
+						scope = newScope(params);
+					} else {
+						scope.reset(params);
+					}
+					builder.setLength(0);
+					node.render(writer, scope);
+					batch.sink.accept(params, builder);
+				}
+			} catch (Throwable e) {
+				batch.fail();
+				throw e;
+			}
+			return null;
+		}
+	}
+
 }
@@ -1,23 +1,51 @@
 package com.catascopic.template;
 
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Reader;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.FileVisitResult;
 import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 import com.catascopic.template.parse.Node;
 import com.catascopic.template.parse.TemplateParser;
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.Uninterruptibles;
 
-public class TemplateEngine {
+public class TemplateEngine implements Closeable {
 
 	private final ParseCache<Node> templateCache;
-	private final ParseCache<String> textCache;
+	private final ParseCache<CharSequence> textCache;
 	private final Settings settings;
+	private final FileWatcher watcher;
 
 	private static final int DEFAULT_CACHE_SIZE = 64;
 
+	// Approximate sizes used to weigh cache entries. A parsed template retains
+	// its text plus a node for every line, tag, and expression, which comes
+	// to a few times the size of its source.
+	private static final long STRING_OVERHEAD = 40;
+	// a mapped file is not on the heap
+	private static final long MAPPED_OVERHEAD = 100;
+	private static final long TEMPLATE_OVERHEAD = 4;
+
 	public static TemplateEngine create() {
 		return create(Settings.DEFAULT, DEFAULT_CACHE_SIZE);
 	}
@@ -27,13 +55,35 @@ public class TemplateEngine {
 	}
 
 	public static TemplateEngine create(Settings settings, int cacheSize) {
-		return new TemplateEngine(settings, cacheSize);
+		try {
+			return builder().setSettings(settings).setCacheSize(cacheSize).build();
+		} catch (IOException e) {
+			// only watching a directory can fail
+			throw new AssertionError(e);
+		}
 	}
 
-	private TemplateEngine(Settings settings, int cacheSize) {
-		this.settings = settings;
-		this.templateCache = new TemplateCache(cacheSize);
-		this.textCache = new TextCache(cacheSize);
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	private TemplateEngine(Builder builder) throws IOException {
+		this.settings = builder.settings;
+		Freshness freshness = builder.freshness;
+		if (freshness == null) {
+			freshness = builder.watchDirectory == null ? Freshness.ALWAYS : Freshness.NEVER;
+		}
+		this.templateCache = new TemplateCache(
+				builder.cacheSize, builder.maximumWeight, freshness,
+				builder.imageDirectory == null ? null
+						: new ImageStore(builder.imageDirectory),
+				builder.memoryMapped);
+		this.textCache = new TextCache(
+				builder.cacheSize, builder.maximumWeight, freshness,
+				builder.memoryMapped);
+		this.watcher = builder.watchDirectory == null ? null
+				: new FileWatcher(builder.watchDirectory,
+						new CacheInvalidator(builder.reparseOnChange));
 	}
 
 	public void render(Path path, Appendable writer, Map<String, ?> params)
@@ -46,6 +96,26 @@ public class TemplateEngine {
 		render(path, writer, newScope(path, params));
 	}
 
+	/**
+	 * Renders a template to a stream as UTF-8. The static text of the template
+	 * is encoded once and copied as bytes on every render. The stream is
+	 * flushed but not closed.
+	 */
+	public void render(Path path, OutputStream out, Map<String, ?> params)
+			throws IOException {
+		render(path, out, newScope(path, params));
+	}
+
+	/**
+	 * Renders a template to a stream as UTF-8. The static text of the template
+	 * is encoded once and copied as bytes on every render. The stream is
+	 * flushed but not closed.
+	 */
+	public void render(Path path, OutputStream out, LocalAccess params)
+			throws IOException {
+		render(path, out, newScope(path, params));
+	}
+
 	public String render(Path path, Map<String, ?> params) throws IOException {
 		return render(path, newScope(path, params));
 	}
@@ -69,7 +139,139 @@ public class TemplateEngine {
 	}
 
 	private void render(Path path, Appendable writer, Scope scope) throws IOException {
-		getTemplate(path).render(writer, scope);
+		getTemplate(path).render(Profiler.instrument(writer, settings), scope);
+	}
+
+	private void render(Path path, OutputStream out, Scope scope) throws IOException {
+		Utf8Output output = new Utf8Output(out);
+		render(path, output, scope);
+		output.flush();
+	}
+
+	/**
+	 * Parses every template in a directory tree whose file name matches the
+	 * given glob pattern, so that they are already cached when they are first
+	 * rendered. The template cache should be large enough to hold them.
+	 *
+	 * @param directory the root of the directory tree
+	 * @param glob a pattern such as <code>*.template</code>
+	 * @throws TemplateParseException if any template cannot be parsed; the
+	 *         errors of all other templates that cannot be parsed or read are
+	 *         added to it as suppressed exceptions
+	 * @throws IOException if a template cannot be read, and all of them can
+	 *         be parsed
+	 */
+	public void precompile(Path directory, String glob) throws IOException {
+		precompile(directory, glob, MoreExecutors.directExecutor());
+	}
+
+	/**
+	 * Parses every template in a directory tree whose file name matches the
+	 * given glob pattern, so that they are already cached when they are first
+	 * rendered. The templates are parsed by tasks submitted to the given
+	 * executor, and this method returns when all of them are complete.
+	 *
+	 * @param directory the root of the directory tree
+	 * @param glob a pattern such as <code>*.template</code>
+	 * @param executor the executor that parses the templates
+	 * @throws TemplateParseException if any template cannot be parsed; the
+	 *         errors of all other templates that cannot be parsed or read are
+	 *         added to it as suppressed exceptions
+	 * @throws IOException if a template cannot be read, and all of them can
+	 *         be parsed
+	 */
+	public void precompile(Path directory, String glob, Executor executor)
+			throws IOException {
+		List<Future<Node>> results = new ArrayList<>();
+		for (final Path file : findFiles(directory, glob)) {
+			FutureTask<Node> task = new FutureTask<>(new Callable<Node>() {
+
+				@Override
+				public Node call() throws IOException {
+					return templateCache.get(file);
+				}
+			});
+			executor.execute(task);
+			results.add(task);
+		}
+		List<Throwable> failures = new ArrayList<>();
+		Throwable failure = null;
+		for (Future<Node> result : results) {
+			try {
+				Uninterruptibles.getUninterruptibly(result);
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				failures.add(cause);
+				if (failure == null || cause instanceof TemplateParseException
+						&& !(failure instanceof TemplateParseException)) {
+					failure = cause;
+				}
+			}
+		}
+		if (failure != null) {
+			for (Throwable other : failures) {
+				if (other != failure) {
+					failure.addSuppressed(other);
+				}
+			}
+			Throwables.throwIfInstanceOf(failure, IOException.class);
+			Throwables.throwIfUnchecked(failure);
+			throw new AssertionError(failure);
+		}
+	}
+
+	private static List<Path> findFiles(Path directory, String glob) throws IOException {
+		final PathMatcher matcher = directory.getFileSystem().getPathMatcher("glob:" + glob);
+		final List<Path> files = new ArrayList<>();
+		Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+				if (attrs.isRegularFile() && matcher.matches(file.getFileName())) {
+					files.add(file);
+				}
+				return FileVisitResult.CONTINUE;
+			}
+		});
+		return files;
+	}
+
+	/**
+	 * Causes every cached template and text file to be checked for
+	 * modification the next time it is used, regardless of the
+	 * {@link Freshness} policy of this engine.
+	 */
+	public void checkModified() {
+		templateCache.checkModified();
+		textCache.checkModified();
+	}
+
+	/**
+	 * Returns the hit, miss, eviction, and load time statistics of the
+	 * template cache.
+	 */
+	public CacheStats templateCacheStats() {
+		return templateCache.stats();
+	}
+
+	/**
+	 * Returns the hit, miss, eviction, and load time statistics of the cache
+	 * of files read by <code>textFile</code>.
+	 */
+	public CacheStats textCacheStats() {
+		return textCache.stats();
+	}
+
+	/**
+	 * Stops watching the template directory, if this engine was built with
+	 * {@link Builder#watch(Path, boolean)}. The engine can still be used to
+	 * render templates afterwards.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (watcher != null) {
+			watcher.close();
+		}
 	}
 
 	Node getTemplate(Path file) {
@@ -80,7 +282,7 @@ public class TemplateEngine {
 		}
 	}
 
-	String getTextFile(Path file) {
+	CharSequence getTextFile(Path file) {
 		try {
 			return textCache.get(file);
 		} catch (IOException e) {
@@ -92,30 +294,206 @@ public class TemplateEngine {
 		return settings;
 	}
 
-	private static class TextCache extends ParseCache<String> {
+	private static int saturatedWeight(long weight) {
+		return (int) Math.min(weight, Integer.MAX_VALUE);
+	}
+
+	private class CacheInvalidator implements FileWatcher.Listener {
 
-		TextCache(int size) {
-			super(size);
+		private final boolean reparse;
+
+		CacheInvalidator(boolean reparse) {
+			this.reparse = reparse;
 		}
 
 		@Override
-		protected String parse(Path file) throws IOException {
+		public void changed(Set<Path> files) {
+			List<Path> templates = templateCache.invalidate(files);
+			List<Path> textFiles = textCache.invalidate(files);
+			if (reparse) {
+				templateCache.preload(templates);
+				textCache.preload(textFiles);
+			}
+		}
+
+		@Override
+		public void overflow() {
+			templateCache.invalidateAll();
+			textCache.invalidateAll();
+		}
+	}
+
+	private static class TextCache extends ParseCache<CharSequence> {
+
+		private final boolean memoryMapped;
+
+		TextCache(int size, long maximumWeight, Freshness freshness,
+				boolean memoryMapped) {
+			super(size, maximumWeight, freshness);
+			this.memoryMapped = memoryMapped;
+		}
+
+		@Override
+		protected CharSequence parse(Path file) throws IOException {
+			if (memoryMapped) {
+				return MappedText.load(file);
+			}
 			return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
 		}
+
+		@Override
+		protected int weigh(CharSequence parsed, long fileSize) {
+			if (parsed instanceof MappedText) {
+				return saturatedWeight(MAPPED_OVERHEAD);
+			}
+			return saturatedWeight(STRING_OVERHEAD + 2L * parsed.length());
+		}
 	}
 
 	private static class TemplateCache extends ParseCache<Node> {
 
-		TemplateCache(int size) {
-			super(size);
+		private final ImageStore images;
+		private final boolean memoryMapped;
+
+		TemplateCache(int size, long maximumWeight, Freshness freshness,
+				ImageStore images, boolean memoryMapped) {
+			super(size, maximumWeight, freshness);
+			this.images = images;
+			this.memoryMapped = memoryMapped;
 		}
 
 		@Override
 		protected Node parse(Path file) throws IOException {
+			if (memoryMapped) {
+				ByteBuffer source = MappedText.map(file);
+				return images == null
+						? ImageStore.parse(file, source)
+						: images.load(file, source);
+			}
+			if (images != null) {
+				// the whole file is needed to look up its image by hash
+				return images.load(file, ByteBuffer.wrap(Files.readAllBytes(file)));
+			}
 			try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
 				return TemplateParser.parse(TrackingReader.create(reader, file));
 			}
 		}
+
+		@Override
+		protected int weigh(Node parsed, long fileSize) {
+			return saturatedWeight(TEMPLATE_OVERHEAD * fileSize);
+		}
+	}
+
+	public static class Builder {
+
+		private Builder() {}
+
+		private Settings settings = Settings.DEFAULT;
+		private int cacheSize = DEFAULT_CACHE_SIZE;
+		private long maximumWeight; // = 0, limit by cacheSize
+		private Freshness freshness; // default depends on watchDirectory
+		private Path watchDirectory;
+		private boolean reparseOnChange;
+		private Path imageDirectory;
+		private boolean memoryMapped;
+
+		public Builder setSettings(Settings settings) {
+			this.settings = settings;
+			return this;
+		}
+
+		/**
+		 * Sets the maximum number of templates, and separately the maximum
+		 * number of text files, that the engine keeps parsed in memory.
+		 */
+		public Builder setCacheSize(int cacheSize) {
+			this.cacheSize = cacheSize;
+			return this;
+		}
+
+		/**
+		 * Limits the template cache, and separately the text file cache, by
+		 * the approximate number of bytes their entries retain rather than by
+		 * their number of entries. This replaces the limit set by
+		 * {@link #setCacheSize(int)}.
+		 *
+		 * @param bytes the maximum weight of each cache
+		 */
+		public Builder setMaximumWeight(long bytes) {
+			this.maximumWeight = bytes;
+			return this;
+		}
+
+		/**
+		 * Sets how often cached files are checked for modification. The
+		 * default is {@link Freshness#ALWAYS}, or {@link Freshness#NEVER} if
+		 * the engine watches a directory.
+		 */
+		public Builder setFreshness(Freshness freshness) {
+			this.freshness = freshness;
+			return this;
+		}
+
+		/**
+		 * Watches a directory tree for changes and evicts the cached templates
+		 * and text files within it as soon as they change, instead of checking
+		 * their modification times when they are used. The engine must be
+		 * {@link TemplateEngine#close() closed} to stop watching.
+		 *
+		 * @param directory the root of the directory tree
+		 * @param reparse whether files that were cached when they changed are
+		 *        parsed again in the background, so that the next render does
+		 *        not have to wait for it
+		 */
+		public Builder watch(Path directory, boolean reparse) {
+			this.watchDirectory = directory;
+			this.reparseOnChange = reparse;
+			return this;
+		}
+
+		/**
+		 * Stores every parsed template in the given directory in a binary
+		 * format, and loads it from there instead of parsing it when the
+		 * engine, or another engine using the same directory, next needs a
+		 * template with the same content. Images are matched by a hash of the
+		 * template source, so they never need to be invalidated; stale images
+		 * can be deleted at any time.
+		 *
+		 * @param directory the directory of precompiled images, which is
+		 *        created if it does not exist
+		 */
+		public Builder setPrecompiledDirectory(Path directory) {
+			this.imageDirectory = directory;
+			return this;
+		}
+
+		/**
+		 * Reads templates and text files by mapping them into memory instead
+		 * of copying them to the heap. Templates are decoded as they are
+		 * parsed. A text file that is entirely ASCII is returned by
+		 * <code>textFile</code> as a sequence of characters backed by the
+		 * mapping, which is written to an OutputStream without being decoded;
+		 * other text files are decoded into strings as usual.
+		 * <p>
+		 * A mapping is released only when it is garbage collected, and on
+		 * some platforms a mapped file cannot be modified or deleted until
+		 * then.
+		 */
+		public Builder setMemoryMapped(boolean memoryMapped) {
+			this.memoryMapped = memoryMapped;
+			return this;
+		}
+
+		/**
+		 * Builds the engine.
+		 *
+		 * @throws IOException if the watched directory cannot be registered,
+		 *         or the precompiled directory cannot be created
+		 */
+		public TemplateEngine build() throws IOException {
+			return new TemplateEngine(this);
+		}
 	}
 
 }
@@ -1,7 +1,31 @@
 package com.catascopic.template;
 
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * A function that can be called from a template.
+ * <p>
+ * Calls with one, two, or three arguments are made through the overloads of
+ * <code>apply</code> that take the arguments directly. By default these
+ * collect the arguments into {@link Params}; a function that is called often
+ * with a fixed number of arguments can override them so that the call
+ * allocates nothing.
+ */
 public interface TemplateFunction {
 
 	Object apply(Params params);
 
+	default Object apply(Scope scope, Object arg) {
+		return apply(new Params(Collections.singletonList(arg), scope));
+	}
+
+	default Object apply(Scope scope, Object arg1, Object arg2) {
+		return apply(new Params(Arrays.asList(arg1, arg2), scope));
+	}
+
+	default Object apply(Scope scope, Object arg1, Object arg2, Object arg3) {
+		return apply(new Params(Arrays.asList(arg1, arg2, arg3), scope));
+	}
+
 }
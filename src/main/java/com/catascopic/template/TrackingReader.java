@@ -4,14 +4,31 @@ import java.io.IOException;
 import java.io.Reader;
 import java.nio.file.Path;
 
+/**
+ * Reads characters in blocks from a Reader, normalizing line terminators to
+ * <code>'\n'</code>, and keeps track of the location of the next character.
+ * The location is only computed when it is requested, by scanning the
+ * characters read since it was last computed, so reading costs no more than
+ * an array access per character. Runs of text can be read in bulk with
+ * {@link #readUntil(boolean[], StringBuilder)}.
+ */
 public class TrackingReader implements Trackable {
 
+	private static final int BUFFER_SIZE = 4096;
+	private static final int NONE = -1;
+
 	private Reader reader;
+	private char[] buf;
+	private int pos; // = 0
+	private int limit; // = 0
+	private boolean skipLf;
+	// a character that was unread; it is not counted again in the location
+	private int pushback = NONE;
+
+	// the location of buf[mark]
 	private int line; // = 0
 	private int column; // = 0
-	private boolean skipLf;
-	private char[] buf;
-	private int pos;
+	private int mark; // = 0
 
 	private Path path;
 
@@ -26,45 +43,153 @@ public class TrackingReader implements Trackable {
 	private TrackingReader(Reader reader, int size, Path path) {
 		this.reader = reader;
 		this.buf = new char[size];
-		this.pos = size;
 		this.path = path;
 	}
 
 	private TrackingReader(Reader reader, Path path) {
-		this(reader, 1, path);
+		this(reader, BUFFER_SIZE, path);
 	}
 
 	public int read() throws IOException {
-		if (pos < buf.length) {
-			return buf[pos++];
+		if (pushback != NONE) {
+			int c = pushback;
+			pushback = NONE;
+			return c;
+		}
+		if (pos == limit && !fill()) {
+			return -1;
+		}
+		return buf[pos++];
+	}
+
+	/**
+	 * Reads characters into the given builder until one of the given
+	 * delimiters is read, and returns the delimiter, or -1 at the end of the
+	 * input. The delimiter is not appended.
+	 *
+	 * @param delimiters a table indexed by character; characters beyond its
+	 *        length are never delimiters
+	 */
+	public int readUntil(boolean[] delimiters, StringBuilder builder) throws IOException {
+		if (pushback != NONE) {
+			int c = read();
+			if (c < delimiters.length && delimiters[c]) {
+				return c;
+			}
+			builder.append((char) c);
+		}
+		for (;;) {
+			if (pos == limit && !fill()) {
+				return -1;
+			}
+			char[] buf = this.buf;
+			int start = pos;
+			int end = limit;
+			int i = start;
+			while (i < end) {
+				char c = buf[i];
+				if (c < delimiters.length && delimiters[c]) {
+					break;
+				}
+				i++;
+			}
+			builder.append(buf, start, i - start);
+			if (i < end) {
+				pos = i + 1;
+				return buf[i];
+			}
+			pos = i;
+		}
+	}
+
+	/**
+	 * Returns a table of the given characters for
+	 * {@link #readUntil(boolean[], StringBuilder)}.
+	 */
+	public static boolean[] delimiters(String chars) {
+		int length = 0;
+		for (int i = 0; i < chars.length(); i++) {
+			length = Math.max(length, chars.charAt(i) + 1);
 		}
-		int c = reader.read();
-		if (c != -1) {
-			column++;
+		boolean[] delimiters = new boolean[length];
+		for (int i = 0; i < chars.length(); i++) {
+			delimiters[chars.charAt(i)] = true;
 		}
-		if (skipLf) {
-			if (c == '\n') {
-				c = reader.read();
+		return delimiters;
+	}
+
+	private boolean fill() throws IOException {
+		updateLocation();
+		pos = 0;
+		limit = 0;
+		mark = 0;
+		while (limit == 0) {
+			int n = reader.read(buf, 0, buf.length);
+			if (n == -1) {
+				return false;
 			}
+			limit = normalize(n);
+		}
+		return true;
+	}
+
+	/**
+	 * Replaces each "\r\n" and "\r" in the first n characters of the buffer
+	 * with "\n", and returns the new number of characters.
+	 */
+	private int normalize(int n) {
+		int i = 0;
+		if (skipLf && n > 0) {
 			skipLf = false;
+			if (buf[0] == '\n') {
+				i = 1;
+			}
 		}
-		switch (c) {
-		case '\r':
-			skipLf = true;
-			// fallthrough
-		case '\n':
-			line++;
-			column = 0;
-			return '\n';
+		int count = i == 0 ? indexOf('\r', n) : 0;
+		if (count == n) {
+			return n;
+		}
+		for (i = Math.max(i, count); i < n; i++) {
+			char c = buf[i];
+			if (c == '\r') {
+				c = '\n';
+				if (i + 1 == n) {
+					skipLf = true;
+				} else if (buf[i + 1] == '\n') {
+					i++;
+				}
+			}
+			buf[count++] = c;
+		}
+		return count;
+	}
+
+	private int indexOf(char c, int n) {
+		for (int i = 0; i < n; i++) {
+			if (buf[i] == c) {
+				return i;
+			}
+		}
+		return n;
+	}
+
+	private void updateLocation() {
+		for (int i = mark; i < pos; i++) {
+			if (buf[i] == '\n') {
+				line++;
+				column = 0;
+			} else {
+				column++;
+			}
 		}
-		return c;
+		mark = pos;
 	}
 
 	public void unread(int c) {
-		if (pos == 0) {
+		if (pushback != NONE) {
 			throw new IllegalStateException();
 		}
-		buf[--pos] = (char) c;
+		pushback = (char) c;
 	}
 
 	public boolean tryRead(char match) throws IOException {
@@ -80,6 +205,7 @@ public class TrackingReader implements Trackable {
 
 	@Override
 	public Location getLocation() {
+		updateLocation();
 		return new Location(path, line, column);
 	}
 
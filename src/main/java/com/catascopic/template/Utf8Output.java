@@ -0,0 +1,198 @@
+package com.catascopic.template;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * An Appendable that encodes characters to UTF-8 and writes them to an
+ * OutputStream through its own buffer. Text that is already encoded, such as
+ * the static text of a template, can be written with
+ * {@link #writeEncoded(byte[])}, which copies the bytes without encoding them
+ * again.
+ * <p>
+ * Output is only guaranteed to reach the stream once {@link #flush()} is
+ * called. Unpaired surrogates are written as <code>'?'</code>, as by
+ * {@link String#getBytes(java.nio.charset.Charset)}.
+ * <p>
+ * The stream is flushed at the end of an iteration of a <code>for</code> block
+ * once at least the given number of bytes have been written since it was last
+ * flushed.
+ */
+public final class Utf8Output implements StreamingOutput, EncodedOutput {
+
+	private static final int BUFFER_SIZE = 8192;
+
+	private final OutputStream out;
+	private final byte[] buf = new byte[BUFFER_SIZE];
+	private final long flushThreshold;
+	private int count; // = 0
+	private long unflushed; // = 0
+	// a high surrogate whose low surrogate has not been appended yet
+	private char pending; // = 0
+
+	/**
+	 * Creates a Utf8Output that flushes the stream only when {@link #flush()}
+	 * is called.
+	 */
+	public Utf8Output(OutputStream out) {
+		this(out, Long.MAX_VALUE);
+	}
+
+	/**
+	 * @param flushThreshold the number of bytes after which the stream is
+	 *        flushed at the end of an iteration; zero flushes after every
+	 *        iteration
+	 */
+	public Utf8Output(OutputStream out, long flushThreshold) {
+		if (flushThreshold < 0) {
+			throw new IllegalArgumentException("flushThreshold: " + flushThreshold);
+		}
+		this.out = out;
+		this.flushThreshold = flushThreshold;
+	}
+
+	@Override
+	public Utf8Output append(CharSequence csq) throws IOException {
+		if (csq == null) {
+			csq = "null";
+		}
+		if (csq instanceof MappedText) {
+			writeEncoded(((MappedText) csq).bytes());
+			return this;
+		}
+		return append(csq, 0, csq.length());
+	}
+
+	@Override
+	public Utf8Output append(CharSequence csq, int start, int end) throws IOException {
+		if (csq == null) {
+			csq = "null";
+		}
+		for (int i = start; i < end; i++) {
+			char c = csq.charAt(i);
+			if (c < 0x80 && pending == 0) {
+				if (count == buf.length) {
+					flushBuffer();
+				}
+				buf[count++] = (byte) c;
+			} else {
+				encode(c);
+			}
+		}
+		return this;
+	}
+
+	@Override
+	public Utf8Output append(char c) throws IOException {
+		encode(c);
+		return this;
+	}
+
+	@Override
+	public void appendEncoded(CharSequence text, byte[] utf8) throws IOException {
+		writeEncoded(utf8);
+	}
+
+	/**
+	 * Writes bytes that are already encoded as UTF-8.
+	 */
+	public void writeEncoded(byte[] bytes) throws IOException {
+		if (pending != 0) {
+			writeUnpaired();
+		}
+		if (bytes.length > buf.length - count) {
+			flushBuffer();
+			if (bytes.length > buf.length) {
+				out.write(bytes);
+				unflushed += bytes.length;
+				return;
+			}
+		}
+		System.arraycopy(bytes, 0, buf, count, bytes.length);
+		count += bytes.length;
+	}
+
+	private void writeEncoded(ByteBuffer bytes) throws IOException {
+		if (pending != 0) {
+			writeUnpaired();
+		}
+		while (bytes.hasRemaining()) {
+			if (count == buf.length) {
+				flushBuffer();
+			}
+			int length = Math.min(bytes.remaining(), buf.length - count);
+			bytes.get(buf, count, length);
+			count += length;
+		}
+	}
+
+	private void encode(char c) throws IOException {
+		if (count > buf.length - 4) {
+			flushBuffer();
+		}
+		if (pending != 0) {
+			if (Character.isLowSurrogate(c)) {
+				int codePoint = Character.toCodePoint(pending, c);
+				pending = 0;
+				buf[count++] = (byte) (0xF0 | (codePoint >> 18));
+				buf[count++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+				buf[count++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+				buf[count++] = (byte) (0x80 | (codePoint & 0x3F));
+				return;
+			}
+			writeUnpaired();
+		}
+		if (c < 0x80) {
+			buf[count++] = (byte) c;
+		} else if (c < 0x800) {
+			buf[count++] = (byte) (0xC0 | (c >> 6));
+			buf[count++] = (byte) (0x80 | (c & 0x3F));
+		} else if (Character.isHighSurrogate(c)) {
+			pending = c;
+		} else if (Character.isLowSurrogate(c)) {
+			buf[count++] = '?';
+		} else {
+			buf[count++] = (byte) (0xE0 | (c >> 12));
+			buf[count++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+			buf[count++] = (byte) (0x80 | (c & 0x3F));
+		}
+	}
+
+	private void writeUnpaired() throws IOException {
+		pending = 0;
+		if (count == buf.length) {
+			flushBuffer();
+		}
+		buf[count++] = '?';
+	}
+
+	private void flushBuffer() throws IOException {
+		out.write(buf, 0, count);
+		unflushed += count;
+		count = 0;
+	}
+
+	@Override
+	public void endIteration() throws IOException {
+		if (unflushed + count >= flushThreshold) {
+			flush();
+		}
+	}
+
+	/**
+	 * Writes the buffered output to the stream, and flushes the stream. A
+	 * high surrogate at the end of the output is written as
+	 * <code>'?'</code>, since its low surrogate can no longer be appended.
+	 */
+	@Override
+	public void flush() throws IOException {
+		if (pending != 0) {
+			writeUnpaired();
+		}
+		flushBuffer();
+		out.flush();
+		unflushed = 0;
+	}
+
+}
@@ -2,6 +2,7 @@ package com.catascopic.template.expr;
 
 import com.catascopic.template.Context;
 import com.catascopic.template.value.Values;
+import com.google.common.math.IntMath;
 
 enum BinaryOperator {
 
@@ -11,6 +12,16 @@ enum BinaryOperator {
 		Object apply(Object left, Object right) {
 			return Values.add(left, right);
 		}
+
+		@Override
+		boolean hasIntResult() {
+			return true;
+		}
+
+		@Override
+		int applyInt(int left, int right) {
+			return left + right;
+		}
 	},
 	SUBTRACT {
 
@@ -18,6 +29,16 @@ enum BinaryOperator {
 		Object apply(Object left, Object right) {
 			return Values.add(left, Values.negate(right));
 		}
+
+		@Override
+		boolean hasIntResult() {
+			return true;
+		}
+
+		@Override
+		int applyInt(int left, int right) {
+			return left - right;
+		}
 	},
 	MULTIPLY {
 
@@ -25,6 +46,16 @@ enum BinaryOperator {
 		Object apply(Object left, Object right) {
 			return Values.multiply(left, right);
 		}
+
+		@Override
+		boolean hasIntResult() {
+			return true;
+		}
+
+		@Override
+		int applyInt(int left, int right) {
+			return left * right;
+		}
 	},
 	DIVIDE {
 
@@ -32,6 +63,16 @@ enum BinaryOperator {
 		Object apply(Object left, Object right) {
 			return Values.divide(left, right);
 		}
+
+		@Override
+		boolean hasIntResult() {
+			return true;
+		}
+
+		@Override
+		int applyInt(int left, int right) {
+			return left / right;
+		}
 	},
 	POWER {
 
@@ -39,6 +80,16 @@ enum BinaryOperator {
 		Object apply(Object left, Object right) {
 			return Values.power(left, right);
 		}
+
+		@Override
+		boolean hasIntResult() {
+			return true;
+		}
+
+		@Override
+		int applyInt(int left, int right) {
+			return IntMath.pow(left, right);
+		}
 	},
 	MODULO {
 
@@ -46,6 +97,16 @@ enum BinaryOperator {
 		Object apply(Object left, Object right) {
 			return Values.modulo(left, right);
 		}
+
+		@Override
+		boolean hasIntResult() {
+			return true;
+		}
+
+		@Override
+		int applyInt(int left, int right) {
+			return left % right;
+		}
 	},
 	GREATER_THAN {
 
@@ -53,6 +114,16 @@ enum BinaryOperator {
 		Object apply(Object left, Object right) {
 			return Values.compare(left, right) > 0;
 		}
+
+		@Override
+		boolean hasIntTest() {
+			return true;
+		}
+
+		@Override
+		boolean testInt(int left, int right) {
+			return left > right;
+		}
 	},
 	LESS_THAN {
 
@@ -60,6 +131,16 @@ enum BinaryOperator {
 		Object apply(Object left, Object right) {
 			return Values.compare(left, right) < 0;
 		}
+
+		@Override
+		boolean hasIntTest() {
+			return true;
+		}
+
+		@Override
+		boolean testInt(int left, int right) {
+			return left < right;
+		}
 	},
 	GREATER_THAN_OR_EQUAL {
 
@@ -67,6 +148,16 @@ enum BinaryOperator {
 		Object apply(Object left, Object right) {
 			return Values.compare(left, right) >= 0;
 		}
+
+		@Override
+		boolean hasIntTest() {
+			return true;
+		}
+
+		@Override
+		boolean testInt(int left, int right) {
+			return left >= right;
+		}
 	},
 	LESS_THAN_OR_EQUAL {
 
@@ -74,6 +165,16 @@ enum BinaryOperator {
 		Object apply(Object left, Object right) {
 			return Values.compare(left, right) <= 0;
 		}
+
+		@Override
+		boolean hasIntTest() {
+			return true;
+		}
+
+		@Override
+		boolean testInt(int left, int right) {
+			return left <= right;
+		}
 	},
 	EQUAL {
 
@@ -81,6 +182,16 @@ enum BinaryOperator {
 		Object apply(Object left, Object right) {
 			return Values.equal(left, right);
 		}
+
+		@Override
+		boolean hasIntTest() {
+			return true;
+		}
+
+		@Override
+		boolean testInt(int left, int right) {
+			return left == right;
+		}
 	},
 	NOT_EQUAL {
 
@@ -88,6 +199,16 @@ enum BinaryOperator {
 		Object apply(Object left, Object right) {
 			return !Values.equal(left, right);
 		}
+
+		@Override
+		boolean hasIntTest() {
+			return true;
+		}
+
+		@Override
+		boolean testInt(int left, int right) {
+			return left != right;
+		}
 	},
 	AND {
 
@@ -132,4 +253,29 @@ enum BinaryOperator {
 		throw new AssertionError();
 	}
 
+	/**
+	 * Returns whether this operator produces an int from two ints, by
+	 * {@link #applyInt(int, int)}. Its other results are the same as
+	 * {@link #apply(Object, Object)} gives for boxed operands.
+	 */
+	boolean hasIntResult() {
+		return false;
+	}
+
+	/**
+	 * Returns whether this operator compares two ints without boxing them, by
+	 * {@link #testInt(int, int)}.
+	 */
+	boolean hasIntTest() {
+		return false;
+	}
+
+	int applyInt(int left, int right) {
+		throw new AssertionError();
+	}
+
+	boolean testInt(int left, int right) {
+		throw new AssertionError();
+	}
+
 }
@@ -1,24 +1,119 @@
 package com.catascopic.template.expr;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.file.Path;
+
 import com.catascopic.template.Context;
+import com.catascopic.template.Slots;
 
-class BinaryTerm implements Term {
+class BinaryTerm implements Term, Encodable {
 
 	private final Term left;
 	private final BinaryOperator operator;
 	private final Term right;
+	// Whether both operands have been ints every time so far. Until one of
+	// them is not, they are evaluated as ints and the operation is applied
+	// without boxing. Races only cost one more speculative evaluation.
+	private boolean speculate;
 
 	BinaryTerm(Term left, BinaryOperator operation, Term right) {
 		this.left = left;
 		this.operator = operation;
 		this.right = right;
+		this.speculate = operation.hasIntResult() || operation.hasIntTest();
 	}
 
 	@Override
 	public Object evaluate(Context context) {
+		if (speculate) {
+			if (operator.hasIntTest()) {
+				return evaluateTest(context);
+			}
+			try {
+				return evaluateInt(context);
+			} catch (UnexpectedResultException e) {
+				return e.result();
+			}
+		}
 		return operator.apply(left, right, context);
 	}
 
+	private Object evaluateTest(Context context) {
+		int leftValue;
+		try {
+			leftValue = evaluateInt(left, context);
+		} catch (UnexpectedResultException e) {
+			speculate = false;
+			return operator.apply(e.result(), right.evaluate(context));
+		}
+		int rightValue;
+		try {
+			rightValue = evaluateInt(right, context);
+		} catch (UnexpectedResultException e) {
+			speculate = false;
+			return operator.apply(leftValue, e.result());
+		}
+		return operator.testInt(leftValue, rightValue);
+	}
+
+	/**
+	 * Evaluates this term, expecting an int.
+	 * 
+	 * @throws UnexpectedResultException with the result, if it is not an int
+	 */
+	int evaluateInt(Context context) throws UnexpectedResultException {
+		if (!speculate || !operator.hasIntResult()) {
+			return expectInt(evaluate(context));
+		}
+		int leftValue;
+		try {
+			leftValue = evaluateInt(left, context);
+		} catch (UnexpectedResultException e) {
+			speculate = false;
+			throw new UnexpectedResultException(
+					operator.apply(e.result(), right.evaluate(context)));
+		}
+		int rightValue;
+		try {
+			rightValue = evaluateInt(right, context);
+		} catch (UnexpectedResultException e) {
+			speculate = false;
+			throw new UnexpectedResultException(operator.apply(leftValue, e.result()));
+		}
+		return operator.applyInt(leftValue, rightValue);
+	}
+
+	private static int evaluateInt(Term term, Context context)
+			throws UnexpectedResultException {
+		if (term instanceof BinaryTerm) {
+			return ((BinaryTerm) term).evaluateInt(context);
+		}
+		return expectInt(term.evaluate(context));
+	}
+
+	private static int expectInt(Object value) throws UnexpectedResultException {
+		if (value instanceof Integer) {
+			return (Integer) value;
+		}
+		throw new UnexpectedResultException(value);
+	}
+
+	@Override
+	public void encode(DataOutput out) throws IOException {
+		out.writeByte(TermCodec.BINARY);
+		TermCodec.write(left, out);
+		out.writeByte(operator.ordinal());
+		TermCodec.write(right, out);
+	}
+
+	static Term decode(DataInput in, Path path, Slots slots) throws IOException {
+		Term left = TermCodec.read(in, path, slots);
+		BinaryOperator operator = BinaryOperator.values()[in.readByte()];
+		return new BinaryTerm(left, operator, TermCodec.read(in, path, slots));
+	}
+
 	@Override
 	public String toString() {
 		return String.format("%s(%s, %s)", operator, left, right);
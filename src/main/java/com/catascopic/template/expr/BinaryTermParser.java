@@ -19,8 +19,9 @@ class BinaryTermParser implements TermParser {
 		for (;;) {
 			Token token = tokenizer.peek();
 			if (token.type() == TokenType.SYMBOL && symbols.contains(token.symbol())) {
-				left = new BinaryTerm(left, tokenizer.next().symbol().binaryOperator(),
-						lowerOrder.parse(tokenizer));
+				BinaryOperator operator = tokenizer.next().symbol().binaryOperator();
+				Term right = lowerOrder.parse(tokenizer);
+				left = Terms.fold(new BinaryTerm(left, operator, right), left, right);
 			} else {
 				return left;
 			}
@@ -1,9 +1,15 @@
 package com.catascopic.template.expr;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.file.Path;
+
 import com.catascopic.template.Context;
+import com.catascopic.template.Slots;
 import com.catascopic.template.value.Values;
 
-class ConditionalTerm implements Term {
+class ConditionalTerm implements Term, Encodable {
 
 	private final Term condition;
 	private final Term ifTrue;
@@ -22,6 +28,20 @@ class ConditionalTerm implements Term {
 				: ifFalse.evaluate(context);
 	}
 
+	@Override
+	public void encode(DataOutput out) throws IOException {
+		out.writeByte(TermCodec.CONDITIONAL);
+		TermCodec.write(condition, out);
+		TermCodec.write(ifTrue, out);
+		TermCodec.write(ifFalse, out);
+	}
+
+	static Term decode(DataInput in, Path path, Slots slots) throws IOException {
+		Term condition = TermCodec.read(in, path, slots);
+		Term ifTrue = TermCodec.read(in, path, slots);
+		return new ConditionalTerm(condition, ifTrue, TermCodec.read(in, path, slots));
+	}
+
 	@Override
 	public String toString() {
 		return String.format("%s ? %s : %s)", condition, ifTrue, ifFalse);
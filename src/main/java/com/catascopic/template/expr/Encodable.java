@@ -0,0 +1,16 @@
+package com.catascopic.template.expr;
+
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A term that can be written in the binary format read by {@link TermCodec}.
+ */
+interface Encodable {
+
+	/**
+	 * Writes the type tag of this term, followed by its contents.
+	 */
+	void encode(DataOutput out) throws IOException;
+
+}
@@ -1,5 +1,7 @@
 package com.catascopic.template.expr;
 
+import com.catascopic.template.value.Values;
+
 class ExpressionParser {
 
 	static Term parse(Tokenizer tokenizer) {
@@ -8,7 +10,11 @@ class ExpressionParser {
 			Term first = parse(tokenizer);
 			tokenizer.consume(Symbol.COLON);
 			Term second = parse(tokenizer);
-			left = new ConditionalTerm(left, first, second);
+			if (Terms.isConstant(left)) {
+				left = Values.isTrue(Terms.constantValue(left)) ? first : second;
+			} else {
+				left = new ConditionalTerm(left, first, second);
+			}
 		}
 		return left;
 	}
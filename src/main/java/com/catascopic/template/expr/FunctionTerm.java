@@ -1,23 +1,112 @@
 package com.catascopic.template.expr;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.List;
 
+import com.catascopic.template.BuiltIn;
 import com.catascopic.template.Context;
+import com.catascopic.template.Params;
+import com.catascopic.template.Scope;
+import com.catascopic.template.Settings;
+import com.catascopic.template.Slots;
+import com.catascopic.template.TemplateFunction;
 import com.google.common.base.Joiner;
 
-class FunctionTerm implements Term {
+class FunctionTerm implements Term, Encodable {
 
 	private final String name;
 	private final List<Term> params;
+	private final boolean constant;
+	// the function resolved for the settings this term was last evaluated
+	// with; a Binding is immutable, so races only cost an extra lookup
+	private Binding binding;
 
 	FunctionTerm(String name, List<Term> params) {
 		this.name = name;
 		this.params = params;
+		this.constant = Terms.areConstant(params);
 	}
 
 	@Override
 	public Object evaluate(Context context) {
-		return context.call(name, ListTerm.evaluateList(params, context));
+		if (!(context instanceof Scope)) {
+			return context.call(name, evaluateArguments(context));
+		}
+		Scope scope = (Scope) context;
+		if (!constant) {
+			return call(scope, null);
+		}
+		// the arguments cannot fail, so the function can be bound first
+		Binding current = bind(scope.settings());
+		if (current.computed) {
+			return current.result;
+		}
+		Object result = call(scope, current);
+		if (current.pure) {
+			binding = new Binding(current.settings, current.function, result);
+		}
+		return result;
+	}
+
+	private Object call(Scope scope, Binding bound) {
+		switch (params.size()) {
+		case 1:
+			Object arg = params.get(0).evaluate(scope);
+			return function(scope, bound).apply(scope, arg);
+		case 2:
+			Object arg1 = params.get(0).evaluate(scope);
+			Object arg2 = params.get(1).evaluate(scope);
+			return function(scope, bound).apply(scope, arg1, arg2);
+		case 3:
+			Object first = params.get(0).evaluate(scope);
+			Object second = params.get(1).evaluate(scope);
+			Object third = params.get(2).evaluate(scope);
+			return function(scope, bound).apply(scope, first, second, third);
+		default:
+			List<Object> arguments = evaluateArguments(scope);
+			return function(scope, bound).apply(new Params(arguments, scope));
+		}
+	}
+
+	/**
+	 * Evaluates the arguments into a list that, unlike a list literal, may
+	 * contain null, as the arguments of a call with fewer parameters may.
+	 */
+	private List<Object> evaluateArguments(Context context) {
+		Object[] arguments = new Object[params.size()];
+		for (int i = 0; i < arguments.length; i++) {
+			arguments[i] = params.get(i).evaluate(context);
+		}
+		return Arrays.asList(arguments);
+	}
+
+	private TemplateFunction function(Scope scope, Binding bound) {
+		return bound != null ? bound.function : bind(scope.settings()).function;
+	}
+
+	private Binding bind(Settings settings) {
+		Binding current = binding;
+		if (current == null || current.settings != settings) {
+			current = new Binding(settings, settings.getFunction(name));
+			binding = current;
+		}
+		return current;
+	}
+
+	@Override
+	public void encode(DataOutput out) throws IOException {
+		out.writeByte(TermCodec.FUNCTION);
+		TermCodec.writeString(name, out);
+		TermCodec.writeTerms(params, out);
+	}
+
+	static Term decode(DataInput in, Path path, Slots slots) throws IOException {
+		String name = TermCodec.readString(in);
+		return new FunctionTerm(name, TermCodec.readTerms(in, path, slots));
 	}
 
 	@Override
@@ -25,4 +114,31 @@ class FunctionTerm implements Term {
 		return name + "(" + Joiner.on(", ").join(params) + ")";
 	}
 
+	private static class Binding {
+
+		final Settings settings;
+		final TemplateFunction function;
+		// only built-in functions are known to be pure
+		final boolean pure;
+		// the result of calling a pure function with constant arguments
+		final boolean computed;
+		final Object result;
+
+		Binding(Settings settings, TemplateFunction function) {
+			this.settings = settings;
+			this.function = function;
+			this.pure = function instanceof BuiltIn && ((BuiltIn) function).isPure();
+			this.computed = false;
+			this.result = null;
+		}
+
+		Binding(Settings settings, TemplateFunction function, Object result) {
+			this.settings = settings;
+			this.function = function;
+			this.pure = true;
+			this.computed = true;
+			this.result = result;
+		}
+	}
+
 }
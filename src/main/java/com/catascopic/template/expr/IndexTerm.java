@@ -1,9 +1,15 @@
 package com.catascopic.template.expr;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.file.Path;
+
 import com.catascopic.template.Context;
+import com.catascopic.template.Slots;
 import com.catascopic.template.value.Values;
 
-class IndexTerm implements Term {
+class IndexTerm implements Term, Encodable {
 
 	private final Term term;
 	private final Term index;
@@ -18,6 +24,18 @@ class IndexTerm implements Term {
 		return Values.index(term.evaluate(context), index.evaluate(context));
 	}
 
+	@Override
+	public void encode(DataOutput out) throws IOException {
+		out.writeByte(TermCodec.INDEX);
+		TermCodec.write(term, out);
+		TermCodec.write(index, out);
+	}
+
+	static Term decode(DataInput in, Path path, Slots slots) throws IOException {
+		Term term = TermCodec.read(in, path, slots);
+		return new IndexTerm(term, TermCodec.read(in, path, slots));
+	}
+
 	@Override
 	public String toString() {
 		return String.format("%s[%s]", term, index);
@@ -1,12 +1,17 @@
 package com.catascopic.template.expr;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.List;
 
 import com.catascopic.template.Context;
+import com.catascopic.template.Slots;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableList.Builder;
 
-class ListTerm implements Term {
+class ListTerm implements Term, Encodable {
 
 	private final List<Term> items;
 
@@ -27,6 +32,16 @@ class ListTerm implements Term {
 		return builder.build();
 	}
 
+	@Override
+	public void encode(DataOutput out) throws IOException {
+		out.writeByte(TermCodec.LIST);
+		TermCodec.writeTerms(items, out);
+	}
+
+	static Term decode(DataInput in, Path path, Slots slots) throws IOException {
+		return new ListTerm(TermCodec.readTerms(in, path, slots));
+	}
+
 	@Override
 	public String toString() {
 		return items.toString();
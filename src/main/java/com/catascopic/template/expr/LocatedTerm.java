@@ -0,0 +1,69 @@
+package com.catascopic.template.expr;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import com.catascopic.template.Context;
+import com.catascopic.template.Location;
+import com.catascopic.template.Profiler;
+import com.catascopic.template.Scope;
+import com.catascopic.template.Slots;
+import com.catascopic.template.TemplateRenderException;
+
+/**
+ * A top-level expression, which adds its location to any
+ * {@link TemplateRenderException} thrown while evaluating it.
+ */
+class LocatedTerm implements Term, Encodable {
+
+	private final Location location;
+	private final Term expression;
+
+	LocatedTerm(Location location, Term expression) {
+		this.location = location;
+		this.expression = expression;
+	}
+
+	@Override
+	public Object evaluate(Context context) {
+		Profiler profiler = context instanceof Scope ? ((Scope) context).profiler() : null;
+		if (profiler == null) {
+			return evaluateLocated(context);
+		}
+		Profiler.Frame frame = profiler.enter("expression", location, null);
+		try {
+			return evaluateLocated(context);
+		} finally {
+			profiler.exit(frame, null);
+		}
+	}
+
+	private Object evaluateLocated(Context context) {
+		try {
+			return expression.evaluate(context);
+		} catch (TemplateRenderException e) {
+			e.addLocation(location);
+			throw e;
+		}
+	}
+
+	@Override
+	public void encode(DataOutput out) throws IOException {
+		out.writeByte(TermCodec.LOCATED);
+		TermCodec.writeLocation(location, out);
+		TermCodec.write(expression, out);
+	}
+
+	static Term decode(DataInput in, Path path, Slots slots) throws IOException {
+		Location location = TermCodec.readLocation(in, path);
+		return new LocatedTerm(location, TermCodec.read(in, path, slots));
+	}
+
+	@Override
+	public String toString() {
+		return expression.toString();
+	}
+
+}
@@ -1,13 +1,18 @@
 package com.catascopic.template.expr;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Map;
 import java.util.Map.Entry;
 
 import com.catascopic.template.Context;
+import com.catascopic.template.Slots;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableMap.Builder;
 
-class MapTerm implements Term {
+class MapTerm implements Term, Encodable {
 
 	private final Map<String, Term> items;
 
@@ -24,6 +29,26 @@ class MapTerm implements Term {
 		return builder.build();
 	}
 
+	@Override
+	public void encode(DataOutput out) throws IOException {
+		out.writeByte(TermCodec.MAP);
+		out.writeInt(items.size());
+		for (Entry<String, Term> entry : items.entrySet()) {
+			TermCodec.writeString(entry.getKey(), out);
+			TermCodec.write(entry.getValue(), out);
+		}
+	}
+
+	static Term decode(DataInput in, Path path, Slots slots) throws IOException {
+		int size = in.readInt();
+		Builder<String, Term> builder = ImmutableMap.builder();
+		for (int i = 0; i < size; i++) {
+			String key = TermCodec.readString(in);
+			builder.put(key, TermCodec.read(in, path, slots));
+		}
+		return new MapTerm(builder.build());
+	}
+
 	@Override
 	public String toString() {
 		return items.toString();
@@ -1,8 +1,11 @@
 package com.catascopic.template.expr;
 
+import java.io.DataOutput;
+import java.io.IOException;
+
 import com.catascopic.template.Context;
 
-enum NullTerm implements Term {
+enum NullTerm implements Term, Encodable {
 
 	NULL;
 
@@ -11,6 +14,11 @@ enum NullTerm implements Term {
 		return null;
 	}
 
+	@Override
+	public void encode(DataOutput out) throws IOException {
+		out.writeByte(TermCodec.NULL);
+	}
+
 	@Override
 	public String toString() {
 		return "null";
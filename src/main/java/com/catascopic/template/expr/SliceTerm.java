@@ -1,9 +1,15 @@
 package com.catascopic.template.expr;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.file.Path;
+
 import com.catascopic.template.Context;
+import com.catascopic.template.Slots;
 import com.catascopic.template.value.Values;
 
-class SliceTerm implements Term {
+class SliceTerm implements Term, Encodable {
 
 	private final Term seq;
 	private final Term start;
@@ -32,6 +38,22 @@ class SliceTerm implements Term {
 				: Values.toNumber(value).intValue();
 	}
 
+	@Override
+	public void encode(DataOutput out) throws IOException {
+		out.writeByte(TermCodec.SLICE);
+		TermCodec.write(seq, out);
+		TermCodec.write(start, out);
+		TermCodec.write(stop, out);
+		TermCodec.write(step, out);
+	}
+
+	static Term decode(DataInput in, Path path, Slots slots) throws IOException {
+		Term seq = TermCodec.read(in, path, slots);
+		Term start = TermCodec.read(in, path, slots);
+		Term stop = TermCodec.read(in, path, slots);
+		return new SliceTerm(seq, start, stop, TermCodec.read(in, path, slots));
+	}
+
 	@Override
 	public String toString() {
 		if (step == NullTerm.NULL) {
@@ -0,0 +1,204 @@
+package com.catascopic.template.expr;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.catascopic.template.Location;
+import com.catascopic.template.Slots;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Reads and writes terms in a compact binary format, so that a parsed template
+ * can be stored and loaded without parsing it again. Each term is written as a
+ * one-byte tag followed by its contents.
+ * <p>
+ * Locations are written without their path, which is supplied when the terms
+ * are read. Variables are written by name, and given slots in the
+ * {@link Slots} of the template they are read into.
+ */
+public final class TermCodec {
+
+	private TermCodec() {}
+
+	static final byte BINARY = 1;
+	static final byte CONDITIONAL = 2;
+	static final byte FUNCTION = 3;
+	static final byte INDEX = 4;
+	static final byte LIST = 5;
+	static final byte MAP = 6;
+	static final byte NULL = 7;
+	static final byte SLICE = 8;
+	static final byte UNARY = 9;
+	static final byte VALUE = 10;
+	static final byte VARIABLE = 11;
+	static final byte LOCATED = 12;
+
+	private static final byte NULL_VALUE = 0;
+	private static final byte FALSE_VALUE = 1;
+	private static final byte TRUE_VALUE = 2;
+	private static final byte INT_VALUE = 3;
+	private static final byte DOUBLE_VALUE = 4;
+	private static final byte STRING_VALUE = 5;
+	private static final byte LIST_VALUE = 6;
+	private static final byte MAP_VALUE = 7;
+
+	public static void write(Term term, DataOutput out) throws IOException {
+		if (!(term instanceof Encodable)) {
+			throw new IllegalArgumentException(term.getClass().getName()
+					+ " cannot be encoded");
+		}
+		((Encodable) term).encode(out);
+	}
+
+	public static Term read(DataInput in, Path path, Slots slots) throws IOException {
+		byte tag = in.readByte();
+		switch (tag) {
+		case BINARY:
+			return BinaryTerm.decode(in, path, slots);
+		case CONDITIONAL:
+			return ConditionalTerm.decode(in, path, slots);
+		case FUNCTION:
+			return FunctionTerm.decode(in, path, slots);
+		case INDEX:
+			return IndexTerm.decode(in, path, slots);
+		case LIST:
+			return ListTerm.decode(in, path, slots);
+		case MAP:
+			return MapTerm.decode(in, path, slots);
+		case NULL:
+			return NullTerm.NULL;
+		case SLICE:
+			return SliceTerm.decode(in, path, slots);
+		case UNARY:
+			return UnaryTerm.decode(in, path, slots);
+		case VALUE:
+			return ValueTerm.decode(in);
+		case VARIABLE:
+			return Variable.decode(in, slots);
+		case LOCATED:
+			return LocatedTerm.decode(in, path, slots);
+		default:
+			throw new IOException("unknown term tag " + tag);
+		}
+	}
+
+	static void writeTerms(List<Term> terms, DataOutput out) throws IOException {
+		out.writeInt(terms.size());
+		for (Term term : terms) {
+			write(term, out);
+		}
+	}
+
+	static ImmutableList<Term> readTerms(DataInput in, Path path, Slots slots) throws IOException {
+		int size = in.readInt();
+		ImmutableList.Builder<Term> builder = ImmutableList.builder();
+		for (int i = 0; i < size; i++) {
+			builder.add(read(in, path, slots));
+		}
+		return builder.build();
+	}
+
+	static void writeValue(Object value, DataOutput out) throws IOException {
+		if (value == null) {
+			out.writeByte(NULL_VALUE);
+		} else if (value instanceof Boolean) {
+			out.writeByte((Boolean) value ? TRUE_VALUE : FALSE_VALUE);
+		} else if (value instanceof Integer) {
+			out.writeByte(INT_VALUE);
+			out.writeInt((Integer) value);
+		} else if (value instanceof Double) {
+			out.writeByte(DOUBLE_VALUE);
+			out.writeDouble((Double) value);
+		} else if (value instanceof String) {
+			out.writeByte(STRING_VALUE);
+			writeString((String) value, out);
+		} else if (value instanceof List) {
+			List<?> list = (List<?>) value;
+			out.writeByte(LIST_VALUE);
+			out.writeInt(list.size());
+			for (Object item : list) {
+				writeValue(item, out);
+			}
+		} else if (value instanceof Map) {
+			Map<?, ?> map = (Map<?, ?>) value;
+			out.writeByte(MAP_VALUE);
+			out.writeInt(map.size());
+			for (Entry<?, ?> entry : map.entrySet()) {
+				writeString((String) entry.getKey(), out);
+				writeValue(entry.getValue(), out);
+			}
+		} else {
+			throw new IllegalArgumentException(value.getClass().getName()
+					+ " cannot be encoded");
+		}
+	}
+
+	static Object readValue(DataInput in) throws IOException {
+		byte tag = in.readByte();
+		switch (tag) {
+		case NULL_VALUE:
+			return null;
+		case FALSE_VALUE:
+			return false;
+		case TRUE_VALUE:
+			return true;
+		case INT_VALUE:
+			return in.readInt();
+		case DOUBLE_VALUE:
+			return in.readDouble();
+		case STRING_VALUE:
+			return readString(in);
+		case LIST_VALUE:
+			int size = in.readInt();
+			ImmutableList.Builder<Object> list = ImmutableList.builder();
+			for (int i = 0; i < size; i++) {
+				list.add(readValue(in));
+			}
+			return list.build();
+		case MAP_VALUE:
+			int entries = in.readInt();
+			ImmutableMap.Builder<String, Object> map = ImmutableMap.builder();
+			for (int i = 0; i < entries; i++) {
+				String key = readString(in);
+				map.put(key, readValue(in));
+			}
+			return map.build();
+		default:
+			throw new IOException("unknown value tag " + tag);
+		}
+	}
+
+	/**
+	 * Writes a string of any length as its length in bytes followed by its
+	 * UTF-8 encoding. {@link DataOutput#writeUTF(String)} is limited to 64K.
+	 */
+	public static void writeString(String str, DataOutput out) throws IOException {
+		byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	public static String readString(DataInput in) throws IOException {
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	public static void writeLocation(Location location, DataOutput out) throws IOException {
+		out.writeInt(location.line());
+		out.writeInt(location.column());
+	}
+
+	public static Location readLocation(DataInput in, Path path) throws IOException {
+		int line = in.readInt();
+		return new Location(path, line, in.readInt());
+	}
+
+}
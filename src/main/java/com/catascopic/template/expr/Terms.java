@@ -0,0 +1,96 @@
+package com.catascopic.template.expr;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.catascopic.template.NullContext;
+
+/**
+ * Static utility methods for terms.
+ */
+public final class Terms {
+
+	private Terms() {}
+
+	/**
+	 * Returns whether a term always evaluates to the same value, regardless
+	 * of its context.
+	 */
+	public static boolean isConstant(Term term) {
+		return term instanceof ValueTerm || term == NullTerm.NULL;
+	}
+
+	/**
+	 * Returns the value of a constant term.
+	 * 
+	 * @see #isConstant(Term)
+	 */
+	public static Object constantValue(Term term) {
+		return term.evaluate(NullContext.NULL_CONTEXT);
+	}
+
+	static boolean areConstant(Iterable<Term> terms) {
+		for (Term term : terms) {
+			if (!isConstant(term)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Replaces a term whose operands are all constant with its value. A term
+	 * that fails to evaluate is kept, so that the error is reported with its
+	 * location when the template is rendered.
+	 */
+	static Term fold(Term term, Term... operands) {
+		for (Term operand : operands) {
+			if (!isConstant(operand)) {
+				return term;
+			}
+		}
+		return foldConstant(term);
+	}
+
+	static Term foldConstant(Term term) {
+		Object value;
+		try {
+			value = constantValue(term);
+		} catch (RuntimeException e) {
+			return term;
+		}
+		return isLiteral(value) ? new ValueTerm(value) : term;
+	}
+
+	/**
+	 * Returns whether a value can be held by a ValueTerm and encoded by
+	 * {@link TermCodec}. Lists and maps are immutable, and cannot contain
+	 * null.
+	 */
+	static boolean isLiteral(Object value) {
+		if (value == null || value instanceof Boolean || value instanceof Integer
+				|| value instanceof Double || value instanceof String) {
+			return true;
+		}
+		if (value instanceof List) {
+			for (Object item : (List<?>) value) {
+				if (item == null || !isLiteral(item)) {
+					return false;
+				}
+			}
+			return true;
+		}
+		if (value instanceof Map) {
+			for (Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+				if (!(entry.getKey() instanceof String) || entry.getValue() == null
+						|| !isLiteral(entry.getValue())) {
+					return false;
+				}
+			}
+			return true;
+		}
+		return false;
+	}
+
+}
@@ -2,11 +2,11 @@ package com.catascopic.template.expr;
 
 import java.io.IOException;
 
-import com.catascopic.template.Context;
+import com.catascopic.template.Slots;
+import com.catascopic.template.Slots.Slot;
 import com.catascopic.template.Trackable;
 import com.catascopic.template.Location;
 import com.catascopic.template.TrackingReader;
-import com.catascopic.template.TemplateRenderException;
 import com.catascopic.template.TemplateParseException;
 import com.google.common.base.CharMatcher;
 
@@ -14,9 +14,26 @@ public class Tokenizer implements Trackable {
 
 	private TrackingReader reader;
 	private Token peeked;
+	private final Slots slots;
 
 	public Tokenizer(TrackingReader reader) {
+		this(reader, new Slots());
+	}
+
+	/**
+	 * Creates a Tokenizer that gives every variable it parses a slot in the
+	 * given {@link Slots}.
+	 */
+	public Tokenizer(TrackingReader reader, Slots slots) {
 		this.reader = reader;
+		this.slots = slots;
+	}
+
+	/**
+	 * Returns the slot of the named variable.
+	 */
+	public Slot slot(String name) {
+		return slots.slot(name);
 	}
 
 	public Token peek() {
@@ -51,14 +68,30 @@ public class Tokenizer implements Trackable {
 	}
 
 	public boolean tryConsume(String identifier) {
-		Token token = peek();
-		if (token.type() == TokenType.IDENTIFIER && token.identifier().equals(identifier)) {
+		if (isNext(identifier)) {
 			next();
 			return true;
 		}
 		return false;
 	}
 
+	/**
+	 * Returns whether the next token is the given identifier, without
+	 * consuming it.
+	 */
+	public boolean isNext(String identifier) {
+		Token token = peek();
+		return token.type() == TokenType.IDENTIFIER && token.identifier().equals(identifier);
+	}
+
+	/**
+	 * Returns whether the next token is the given symbol, without consuming
+	 * it.
+	 */
+	public boolean isNext(Symbol symbol) {
+		return peek() == symbol;
+	}
+
 	public void end() {
 		Token next = next();
 		if (next.type() != TokenType.END) {
@@ -86,25 +119,10 @@ public class Tokenizer implements Trackable {
 	}
 
 	public Term parseTopLevelExpression() {
-		final Location location = getLocation();
-		final Term expression = parseExpression();
-		return new Term() {
-
-			@Override
-			public Object evaluate(Context context) {
-				try {
-					return expression.evaluate(context);
-				} catch (TemplateRenderException e) {
-					e.addLocation(location);
-					throw e;
-				}
-			}
-
-			@Override
-			public String toString() {
-				return expression.toString();
-			}
-		};
+		Location location = getLocation();
+		Term expression = parseExpression();
+		// a constant cannot fail, so it needs no location
+		return Terms.isConstant(expression) ? expression : new LocatedTerm(location, expression);
 	}
 
 	public Term parseExpression() {
@@ -1,8 +1,14 @@
 package com.catascopic.template.expr;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.file.Path;
+
 import com.catascopic.template.Context;
+import com.catascopic.template.Slots;
 
-class UnaryTerm implements Term {
+class UnaryTerm implements Term, Encodable {
 
 	private final UnaryOperator operator;
 	private final Term term;
@@ -17,6 +23,18 @@ class UnaryTerm implements Term {
 		return operator.apply(term.evaluate(context));
 	}
 
+	@Override
+	public void encode(DataOutput out) throws IOException {
+		out.writeByte(TermCodec.UNARY);
+		out.writeByte(operator.ordinal());
+		TermCodec.write(term, out);
+	}
+
+	static Term decode(DataInput in, Path path, Slots slots) throws IOException {
+		UnaryOperator operator = UnaryOperator.values()[in.readByte()];
+		return new UnaryTerm(operator, TermCodec.read(in, path, slots));
+	}
+
 	@Override
 	public String toString() {
 		return String.format("%s(%s)", operator, term);
@@ -0,0 +1,25 @@
+package com.catascopic.template.expr;
+
+/**
+ * Thrown when a term evaluated speculatively as an int has a result of
+ * another type. The result is carried by the exception, so that the term does
+ * not have to be evaluated again.
+ * <p>
+ * This is control flow rather than an error, so no stack trace is filled in.
+ */
+class UnexpectedResultException extends Exception {
+
+	private static final long serialVersionUID = 1L;
+
+	private final Object result;
+
+	UnexpectedResultException(Object result) {
+		super(null, null, false, false);
+		this.result = result;
+	}
+
+	Object result() {
+		return result;
+	}
+
+}
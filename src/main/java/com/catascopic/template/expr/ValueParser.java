@@ -47,7 +47,7 @@ enum ValueParser implements TermParser {
 					parseList(tokenizer, RIGHT_PARENTHESIS, builder);
 					term = new FunctionTerm(identifier, builder.build());
 				} else {
-					term = new IndexTerm(term, new ValueTerm(identifier));
+					term = Terms.fold(new IndexTerm(term, new ValueTerm(identifier)), term);
 				}
 			} else if (tokenizer.tryConsume(LEFT_BRACKET)) {
 				term = parseIndex(tokenizer, term);
@@ -63,15 +63,20 @@ enum ValueParser implements TermParser {
 		case MINUS:
 		case NOT:
 		case TILDE:
-			return new UnaryTerm(symbol.unaryOperator(), parse(tokenizer));
+			Term operand = parse(tokenizer);
+			return Terms.fold(new UnaryTerm(symbol.unaryOperator(), operand), operand);
 		case LEFT_PARENTHESIS:
 			Term term = ExpressionParser.parse(tokenizer);
 			tokenizer.consume(RIGHT_PARENTHESIS);
 			return term;
 		case LEFT_BRACKET:
-			return new ListTerm(parseList(tokenizer, RIGHT_BRACKET));
+			List<Term> items = parseList(tokenizer, RIGHT_BRACKET);
+			ListTerm list = new ListTerm(items);
+			return Terms.areConstant(items) ? Terms.foldConstant(list) : list;
 		case LEFT_CURLY_BRACKET:
-			return new MapTerm(parseMap(tokenizer));
+			Map<String, Term> entries = parseMap(tokenizer);
+			MapTerm map = new MapTerm(entries);
+			return Terms.areConstant(entries.values()) ? Terms.foldConstant(map) : map;
 		default:
 			throw new TemplateParseException(tokenizer, "unexpected symbol %s", symbol);
 		}
@@ -81,7 +86,7 @@ enum ValueParser implements TermParser {
 		if (tokenizer.tryConsume(LEFT_PARENTHESIS)) {
 			return new FunctionTerm(identifier, parseList(tokenizer, RIGHT_PARENTHESIS));
 		}
-		return new Variable(identifier);
+		return new Variable(tokenizer.slot(identifier));
 	}
 
 	private static Term parseIndex(Tokenizer tokenizer, Term seq) {
@@ -92,12 +97,13 @@ enum ValueParser implements TermParser {
 			index = tokenizer.parseExpression();
 			if (tokenizer.tryConsume(RIGHT_BRACKET)) {
 				// [i]
-				return new IndexTerm(seq, index);
+				return Terms.fold(new IndexTerm(seq, index), seq, index);
 			}
 			tokenizer.consume(COLON);
 			if (tokenizer.tryConsume(RIGHT_BRACKET)) {
 				// [i:]
-				return new SliceTerm(seq, index, NullTerm.NULL, NullTerm.NULL);
+				return Terms.fold(new SliceTerm(seq, index, NullTerm.NULL, NullTerm.NULL),
+						seq, index);
 			}
 		}
 		// [:] is not allowed since lists are immutable and it's redundant
@@ -108,7 +114,8 @@ enum ValueParser implements TermParser {
 			stop = tokenizer.parseExpression();
 			if (tokenizer.tryConsume(RIGHT_BRACKET)) {
 				// [i:j], [:j]
-				return new SliceTerm(seq, index, stop, NullTerm.NULL);
+				return Terms.fold(new SliceTerm(seq, index, stop, NullTerm.NULL),
+						seq, index, stop);
 			}
 			tokenizer.consume(COLON);
 		}
@@ -116,7 +123,7 @@ enum ValueParser implements TermParser {
 		Term step = tokenizer.parseExpression();
 		tokenizer.consume(RIGHT_BRACKET);
 		// [i:j:k], [i::k], [:j:k], [::k]
-		return new SliceTerm(seq, index, stop, step);
+		return Terms.fold(new SliceTerm(seq, index, stop, step), seq, index, stop, step);
 	}
 
 	private static List<Term> parseList(Tokenizer tokenizer, Symbol end) {
@@ -1,9 +1,13 @@
 package com.catascopic.template.expr;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 import com.catascopic.template.Context;
 import com.catascopic.template.value.Values;
 
-class ValueTerm implements Term {
+class ValueTerm implements Term, Encodable {
 
 	private final Object value;
 
@@ -16,6 +20,16 @@ class ValueTerm implements Term {
 		return value;
 	}
 
+	@Override
+	public void encode(DataOutput out) throws IOException {
+		out.writeByte(TermCodec.VALUE);
+		TermCodec.writeValue(value, out);
+	}
+
+	static Term decode(DataInput in) throws IOException {
+		return new ValueTerm(TermCodec.readValue(in));
+	}
+
 	@Override
 	public String toString() {
 		return Values.uneval(value);
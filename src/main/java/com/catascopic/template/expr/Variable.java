@@ -1,23 +1,43 @@
 package com.catascopic.template.expr;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 import com.catascopic.template.Context;
+import com.catascopic.template.Scope;
+import com.catascopic.template.Slots;
+import com.catascopic.template.Slots.Slot;
 
-class Variable implements Term {
+class Variable implements Term, Encodable {
 
-	private final String name;
+	private final Slot slot;
 
-	public Variable(String name) {
-		this.name = name;
+	public Variable(Slot slot) {
+		this.slot = slot;
 	}
 
 	@Override
 	public Object evaluate(Context context) {
-		return context.get(name);
+		if (context instanceof Scope) {
+			return ((Scope) context).get(slot);
+		}
+		return context.get(slot.name());
+	}
+
+	@Override
+	public void encode(DataOutput out) throws IOException {
+		out.writeByte(TermCodec.VARIABLE);
+		TermCodec.writeString(slot.name(), out);
+	}
+
+	static Term decode(DataInput in, Slots slots) throws IOException {
+		return new Variable(slots.slot(TermCodec.readString(in)));
 	}
 
 	@Override
 	public String toString() {
-		return name;
+		return slot.name();
 	}
 
 }
@@ -1,26 +1,105 @@
 package com.catascopic.template.parse;
 
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 
 import com.catascopic.template.Scope;
+import com.catascopic.template.Slots;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 
-class Block implements Node {
+class Block implements Node, Encodable {
 
 	private final List<Node> nodes;
+	// renders the nodes in order, or null if they are iterated over
+	private final MethodHandle compiled;
 
 	Block(ImmutableList<Node> nodes) {
-		this.nodes = nodes;
+		this.nodes = coalesce(nodes);
+		this.compiled = BlockCompiler.compile(this.nodes);
+	}
+
+	/**
+	 * Flattens nested blocks, drops empty nodes, and merges each run of nodes
+	 * whose output never changes into a single TextNode, so that the run is
+	 * rendered by a single append.
+	 */
+	private static List<Node> coalesce(List<Node> nodes) {
+		List<Node> result = new ArrayList<>(nodes.size());
+		StringBuilder text = new StringBuilder();
+		addAll(nodes, result, text);
+		flush(result, text);
+		return ImmutableList.copyOf(result);
+	}
+
+	private static void addAll(List<Node> nodes, List<Node> result, StringBuilder text) {
+		for (Node node : nodes) {
+			if (node instanceof Block) {
+				addAll(((Block) node).nodes, result, text);
+			} else if (node != EmptyNode.EMPTY_NODE) {
+				String staticText = staticText(node);
+				if (staticText != null) {
+					text.append(staticText);
+				} else {
+					flush(result, text);
+					result.add(node);
+				}
+			}
+		}
+	}
+
+	private static String staticText(Node node) {
+		if (node instanceof TextNode) {
+			return ((TextNode) node).text();
+		}
+		if (node == NewlineNode.NEWLINE) {
+			return "\n";
+		}
+		if (node instanceof EvalNode) {
+			return ((EvalNode) node).constantText();
+		}
+		return null;
+	}
+
+	private static void flush(List<Node> result, StringBuilder text) {
+		if (text.length() > 0) {
+			result.add(new TextNode(text.toString()));
+			text.setLength(0);
+		}
 	}
 
 	@Override
 	public void render(Appendable writer, Scope scope) throws IOException {
-		for (Node node : nodes) {
-			node.render(writer, scope);
+		if (compiled == null) {
+			for (Node node : nodes) {
+				node.render(writer, scope);
+			}
+			return;
+		}
+		try {
+			compiled.invokeExact(writer, scope);
+		} catch (Throwable e) {
+			Throwables.throwIfInstanceOf(e, IOException.class);
+			Throwables.throwIfUnchecked(e);
+			throw new AssertionError(e);
 		}
 	}
 
+	@Override
+	public void encode(DataOutput out) throws IOException {
+		out.writeByte(NodeCodec.BLOCK);
+		NodeCodec.writeNodes(nodes, out);
+	}
+
+	static Block decode(DataInput in, Path path, Slots slots) throws IOException {
+		return new Block(NodeCodec.readNodes(in, path, slots));
+	}
+
 	@Override
 	public String toString() {
 		return "block" + nodes;
@@ -23,6 +23,14 @@ abstract class BlockBuilder {
 
 	protected abstract Node build();
 
+	/**
+	 * Returns whether the block is rendered in a scope of its own, so that
+	 * variables cannot be set in it.
+	 */
+	protected boolean isForked() {
+		return false;
+	}
+
 	protected void checkElse(BlockBuilder elseBuilder) {
 		throw new TemplateParseException(elseBuilder.location, "else not allowed in " + this);
 	}
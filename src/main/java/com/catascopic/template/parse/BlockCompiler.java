@@ -0,0 +1,76 @@
+package com.catascopic.template.parse;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.List;
+
+import com.catascopic.template.Scope;
+
+/**
+ * Composes the nodes of a block into a single MethodHandle that renders them
+ * in order, so that rendering a block is one invocation whose target the JIT
+ * can inline, rather than a loop that dispatches through {@link Node} for
+ * each node. A node that contains blocks of its own, such as a
+ * <code>for</code> tag, renders them through their own handles.
+ * <p>
+ * Blocks with more than {@link #MAX_NODES} nodes, and all blocks if the
+ * system property <code>com.catascopic.template.interpret</code> is
+ * <code>true</code>, are not composed, and are rendered by iterating over
+ * their nodes instead.
+ */
+final class BlockCompiler {
+
+	private BlockCompiler() {}
+
+	/**
+	 * The largest number of nodes composed into one handle; each node adds a
+	 * level to the handle, and deep handles are no longer inlined.
+	 */
+	static final int MAX_NODES = 32;
+
+	private static final boolean INTERPRET =
+			Boolean.getBoolean("com.catascopic.template.interpret");
+
+	private static final MethodType RENDER_TYPE =
+			MethodType.methodType(void.class, Appendable.class, Scope.class);
+	private static final MethodHandle RENDER;
+	private static final MethodHandle NOTHING;
+
+	static {
+		MethodHandles.Lookup lookup = MethodHandles.lookup();
+		try {
+			RENDER = lookup.findVirtual(Node.class, "render", RENDER_TYPE);
+			NOTHING = lookup.findStatic(BlockCompiler.class, "nothing", RENDER_TYPE);
+		} catch (ReflectiveOperationException e) {
+			throw new AssertionError(e);
+		}
+	}
+
+	/**
+	 * Returns a handle of type <code>(Appendable, Scope)void</code> that
+	 * renders the given nodes in order, or null if the block should be
+	 * interpreted.
+	 */
+	static MethodHandle compile(List<Node> nodes) {
+		if (INTERPRET || nodes.size() > MAX_NODES) {
+			return null;
+		}
+		if (nodes.isEmpty()) {
+			return NOTHING;
+		}
+		int last = nodes.size() - 1;
+		MethodHandle handle = RENDER.bindTo(nodes.get(last));
+		for (int i = last - 1; i >= 0; i--) {
+			// renders node i, then the rest with the same arguments
+			handle = MethodHandles.foldArguments(handle, RENDER.bindTo(nodes.get(i)));
+		}
+		return handle;
+	}
+
+	@SuppressWarnings("unused")
+	private static void nothing(Appendable writer, Scope scope) {
+		// an empty block
+	}
+
+}
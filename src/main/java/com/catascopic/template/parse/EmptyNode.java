@@ -1,8 +1,11 @@
 package com.catascopic.template.parse;
 
+import java.io.DataOutput;
+import java.io.IOException;
+
 import com.catascopic.template.Scope;
 
-public enum EmptyNode implements Node {
+public enum EmptyNode implements Node, Encodable {
 
 	EMPTY_NODE;
 
@@ -11,4 +14,9 @@ public enum EmptyNode implements Node {
 		// do nothing
 	}
 
+	@Override
+	public void encode(DataOutput out) throws IOException {
+		out.writeByte(NodeCodec.EMPTY);
+	}
+
 }
@@ -0,0 +1,17 @@
+package com.catascopic.template.parse;
+
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A node or assigner that can be written in the binary format read by
+ * {@link NodeCodec}.
+ */
+interface Encodable {
+
+	/**
+	 * Writes the type tag of this object, followed by its contents.
+	 */
+	void encode(DataOutput out) throws IOException;
+
+}
@@ -1,26 +1,66 @@
 package com.catascopic.template.parse;
 
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
+import java.nio.file.Path;
 
+import com.catascopic.template.Location;
+import com.catascopic.template.Profiler;
 import com.catascopic.template.Scope;
+import com.catascopic.template.Slots;
 import com.catascopic.template.expr.Term;
+import com.catascopic.template.expr.TermCodec;
+import com.catascopic.template.expr.Terms;
 import com.catascopic.template.expr.Tokenizer;
 
-class EvalNode implements Node, Tag {
+class EvalNode implements Node, Tag, Encodable {
 
+	private final Location location;
 	private final Term expression;
 
-	private EvalNode(Term expression) {
+	private EvalNode(Location location, Term expression) {
+		this.location = location;
 		this.expression = expression;
 	}
 
 	@Override
 	public void render(Appendable writer, Scope scope) throws IOException {
-		writer.append(String.valueOf(expression.evaluate(scope)));
+		Profiler profiler = scope.profiler();
+		if (profiler == null) {
+			renderValue(writer, scope);
+			return;
+		}
+		Profiler.Frame frame = profiler.enter("eval", location, writer);
+		try {
+			renderValue(writer, scope);
+		} finally {
+			profiler.exit(frame, writer);
+		}
+	}
+
+	private void renderValue(Appendable writer, Scope scope) throws IOException {
+		Object value = expression.evaluate(scope);
+		if (value instanceof CharSequence) {
+			// a mapped text file is not copied into a String
+			writer.append((CharSequence) value);
+		} else {
+			writer.append(String.valueOf(value));
+		}
+	}
+
+	/**
+	 * Returns the output of this node if its expression is constant, or else
+	 * null.
+	 */
+	String constantText() {
+		return Terms.isConstant(expression)
+				? String.valueOf(Terms.constantValue(expression))
+				: null;
 	}
 
 	static Tag getTag(Tokenizer tokenizer) {
-		return new EvalNode(tokenizer.parseTopLevelExpression());
+		return new EvalNode(tokenizer.getLocation(), tokenizer.parseTopLevelExpression());
 	}
 
 	@Override
@@ -28,6 +68,18 @@ class EvalNode implements Node, Tag {
 		parser.add(this);
 	}
 
+	@Override
+	public void encode(DataOutput out) throws IOException {
+		out.writeByte(NodeCodec.EVAL);
+		TermCodec.writeLocation(location, out);
+		TermCodec.write(expression, out);
+	}
+
+	static Node decode(DataInput in, Path path, Slots slots) throws IOException {
+		Location location = TermCodec.readLocation(in, path);
+		return new EvalNode(location, TermCodec.read(in, path, slots));
+	}
+
 	@Override
 	public String toString() {
 		return "eval:" + expression;
@@ -1,37 +1,195 @@
 package com.catascopic.template.parse;
 
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import com.catascopic.template.Location;
+import com.catascopic.template.Profiler;
 import com.catascopic.template.Scope;
+import com.catascopic.template.Settings;
+import com.catascopic.template.Slots;
+import com.catascopic.template.StreamingOutput;
+import com.catascopic.template.expr.Symbol;
 import com.catascopic.template.expr.Term;
+import com.catascopic.template.expr.TermCodec;
 import com.catascopic.template.expr.Tokenizer;
 import com.catascopic.template.parse.Variables.NameAssigner;
 import com.catascopic.template.value.Values;
+import com.google.common.collect.Lists;
 
-class ForNode implements Node {
+/**
+ * <code>@{for names in sequence}</code> or
+ * <code>@{for parallel names in sequence}</code>
+ * <p>
+ * A parallel loop splits the sequence into chunks, which are rendered on the
+ * {@link Settings#forkJoinPool() pool} of the settings into buffers of their
+ * own and then written in order. Each chunk is rendered in a
+ * {@link Scope#fork() fork} of the scope, so the block cannot set variables,
+ * and the loop variables are not visible after the loop.
+ */
+class ForNode implements Node, Encodable {
 
+	private static final int CHUNKS_PER_THREAD = 4;
+
+	private final Location location;
 	private final NameAssigner names;
 	private final Term sequence;
 	private final Block block;
+	private final boolean parallel;
 
-	private ForNode(NameAssigner names, Term sequence, Block block) {
+	private ForNode(Location location, NameAssigner names, Term sequence, Block block,
+			boolean parallel) {
+		this.location = location;
 		this.names = names;
 		this.sequence = sequence;
 		this.block = block;
+		this.parallel = parallel;
 	}
 
 	@Override
 	public void render(Appendable writer, Scope scope) throws IOException {
+		Profiler profiler = scope.profiler();
+		if (profiler == null) {
+			renderLoop(writer, scope);
+			return;
+		}
+		Profiler.Frame frame = profiler.enter("for", location, writer);
+		try {
+			renderLoop(writer, scope);
+		} finally {
+			profiler.exit(frame, writer);
+		}
+	}
+
+	private void renderLoop(Appendable writer, Scope scope) throws IOException {
+		StreamingOutput output = writer instanceof StreamingOutput
+				? (StreamingOutput) writer
+				: null;
+		if (parallel) {
+			renderParallel(writer, output, scope);
+			return;
+		}
 		for (Object item : Values.toIterable(sequence.evaluate(scope))) {
 			names.assign(scope, item);
 			block.render(writer, scope);
+			if (output != null) {
+				output.endIteration();
+			}
+		}
+	}
+
+	private void renderParallel(Appendable writer, StreamingOutput output, Scope scope)
+			throws IOException {
+		Object value = sequence.evaluate(scope);
+		List<?> items = value instanceof List && value instanceof RandomAccess
+				? (List<?>) value
+				: Lists.newArrayList(Values.toIterable(value));
+		ForkJoinPool pool = scope.settings().forkJoinPool();
+		// the chunks are timed as part of this loop, whichever thread they run on
+		Profiler profiler = scope.profiler();
+		Profiler.Frame frame = profiler == null ? null : profiler.current();
+		int count = Math.min(items.size(), pool.getParallelism() * CHUNKS_PER_THREAD);
+		final List<Chunk> chunks = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			chunks.add(new Chunk(items.subList(
+					i * items.size() / count,
+					(i + 1) * items.size() / count),
+					scope.fork(), profiler, frame));
+		}
+		pool.invoke(new RecursiveAction() {
+
+			@Override
+			protected void compute() {
+				invokeAll(chunks);
+			}
+		});
+		for (Chunk chunk : chunks) {
+			if (chunk.failure != null) {
+				throw chunk.failure;
+			}
+		}
+		for (Chunk chunk : chunks) {
+			writer.append(chunk.output);
+			if (output != null) {
+				output.endIteration();
+			}
+		}
+	}
+
+	/**
+	 * Renders a range of the iterations of a parallel loop.
+	 */
+	@SuppressWarnings("serial")
+	private class Chunk extends RecursiveAction {
+
+		final List<?> items;
+		final Scope scope;
+		final Profiler profiler;
+		final Profiler.Frame frame;
+		final StringBuilder output = new StringBuilder();
+		// rethrown by the rendering thread, so that it is not wrapped
+		RuntimeException failure;
+
+		Chunk(List<?> items, Scope scope, Profiler profiler, Profiler.Frame frame) {
+			this.items = items;
+			this.scope = scope;
+			this.profiler = profiler;
+			this.frame = frame;
+		}
+
+		@Override
+		protected void compute() {
+			if (profiler == null) {
+				render(output);
+				return;
+			}
+			Profiler.Frame previous = profiler.attach(frame);
+			try {
+				render(profiler.counting(output));
+			} finally {
+				profiler.attach(previous);
+			}
+		}
+
+		private void render(Appendable writer) {
+			try {
+				for (Object item : items) {
+					names.assign(scope, item);
+					block.render(writer, scope);
+				}
+			} catch (RuntimeException e) {
+				failure = e;
+			} catch (IOException e) {
+				// a StringBuilder does not throw IOException
+				throw new AssertionError(e);
+			}
 		}
 	}
 
 	static Tag parseTag(Tokenizer tokenizer) {
 		final Location location = tokenizer.getLocation();
-		final NameAssigner names = Variables.parseNames(tokenizer);
+		NameAssigner parsed;
+		boolean isParallel = false;
+		if (tokenizer.tryConsume("parallel")) {
+			if (tokenizer.isNext("in") || tokenizer.isNext(Symbol.COMMA)) {
+				// a variable named parallel
+				parsed = Variables.parseNames(tokenizer, "parallel");
+			} else {
+				isParallel = true;
+				parsed = Variables.parseNames(tokenizer);
+			}
+		} else {
+			parsed = Variables.parseNames(tokenizer);
+		}
+		final NameAssigner names = parsed;
+		final boolean parallel = isParallel;
 		tokenizer.consumeIdentifier("in");
 		final Term sequence = tokenizer.parseTopLevelExpression();
 		return new NodeBuilder(location) {
@@ -43,19 +201,46 @@ class ForNode implements Node {
 
 			@Override
 			protected Node build(Block block) {
-				return new ForNode(names, sequence, block);
+				return new ForNode(location, names, sequence, block, parallel);
+			}
+
+			@Override
+			protected boolean isForked() {
+				return parallel;
 			}
 
 			@Override
 			public String toString() {
-				return "for block at " + location;
+				return parallel
+						? "parallel for block at " + location
+						: "for block at " + location;
 			}
 		};
 	}
 
+	@Override
+	public void encode(DataOutput out) throws IOException {
+		out.writeByte(NodeCodec.FOR);
+		TermCodec.writeLocation(location, out);
+		out.writeBoolean(parallel);
+		NodeCodec.encode(names, out);
+		TermCodec.write(sequence, out);
+		block.encode(out);
+	}
+
+	static Node decode(DataInput in, Path path, Slots slots) throws IOException {
+		Location location = TermCodec.readLocation(in, path);
+		boolean parallel = in.readBoolean();
+		NameAssigner names = NodeCodec.readNames(in, path, slots);
+		Term sequence = TermCodec.read(in, path, slots);
+		return new ForNode(location, names, sequence, NodeCodec.readBlock(in, path, slots),
+				parallel);
+	}
+
 	@Override
 	public String toString() {
-		return "for[" + names + " in " + sequence + "] {" + block + "}";
+		return (parallel ? "for parallel[" : "for[")
+				+ names + " in " + sequence + "] {" + block + "}";
 	}
 
 }
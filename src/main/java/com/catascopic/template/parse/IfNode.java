@@ -1,14 +1,20 @@
 package com.catascopic.template.parse;
 
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
+import java.nio.file.Path;
 
 import com.catascopic.template.Location;
 import com.catascopic.template.Scope;
+import com.catascopic.template.Slots;
 import com.catascopic.template.expr.Term;
+import com.catascopic.template.expr.TermCodec;
+import com.catascopic.template.expr.Terms;
 import com.catascopic.template.expr.Tokenizer;
 import com.catascopic.template.value.Values;
 
-class IfNode implements Node {
+class IfNode implements Node, Encodable {
 
 	private final Term condition;
 	private final Block block;
@@ -29,6 +35,17 @@ class IfNode implements Node {
 		}
 	}
 
+	/**
+	 * Returns an IfNode, or only the branch that is taken if the condition is
+	 * constant.
+	 */
+	private static Node create(Term condition, Block block, Node elseNode) {
+		if (Terms.isConstant(condition)) {
+			return Values.isTrue(Terms.constantValue(condition)) ? block : elseNode;
+		}
+		return new IfNode(condition, block, elseNode);
+	}
+
 	static Tag parseTag(Tokenizer tokenizer) {
 		final Location location = tokenizer.getLocation();
 		final Term condition = tokenizer.parseTopLevelExpression();
@@ -46,7 +63,7 @@ class IfNode implements Node {
 
 			@Override
 			protected Node build(Block block, Node elseNode) {
-				return new IfNode(condition, block, elseNode);
+				return create(condition, block, elseNode);
 			}
 
 			@Override
@@ -77,7 +94,7 @@ class IfNode implements Node {
 
 				@Override
 				protected Node build(Block block, Node elseNode) {
-					return new IfNode(condition, block, elseNode);
+					return create(condition, block, elseNode);
 				}
 
 				@Override
@@ -108,6 +125,20 @@ class IfNode implements Node {
 		};
 	}
 
+	@Override
+	public void encode(DataOutput out) throws IOException {
+		out.writeByte(NodeCodec.IF);
+		TermCodec.write(condition, out);
+		block.encode(out);
+		NodeCodec.write(elseNode, out);
+	}
+
+	static Node decode(DataInput in, Path path, Slots slots) throws IOException {
+		Term condition = TermCodec.read(in, path, slots);
+		Block block = NodeCodec.readBlock(in, path, slots);
+		return new IfNode(condition, block, NodeCodec.read(in, path, slots));
+	}
+
 	@Override
 	public String toString() {
 		return elseNode == EmptyNode.EMPTY_NODE
@@ -0,0 +1,110 @@
+package com.catascopic.template.parse;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+
+import com.catascopic.template.Location;
+import com.catascopic.template.Profiler;
+import com.catascopic.template.Scope;
+import com.catascopic.template.Slots;
+import com.catascopic.template.TemplateRenderException;
+import com.catascopic.template.expr.Term;
+import com.catascopic.template.expr.TermCodec;
+import com.catascopic.template.expr.Tokenizer;
+
+/**
+ * <code>@{include path}</code> or <code>@{include path with params}</code>
+ * <p>
+ * Renders another template directly into the output of this one, in a scope
+ * that extends this one with the given map of params. Unlike the
+ * <code>template</code> function, the included template is not rendered into
+ * an intermediate string.
+ */
+class IncludeNode implements Node, Tag, Encodable {
+
+	private final Location location;
+	private final Term path;
+	private final Term params; // null if there are none
+
+	private IncludeNode(Location location, Term path, Term params) {
+		this.location = location;
+		this.path = path;
+		this.params = params;
+	}
+
+	@Override
+	public void render(Appendable writer, Scope scope) throws IOException {
+		Profiler profiler = scope.profiler();
+		if (profiler == null) {
+			include(writer, scope);
+			return;
+		}
+		Profiler.Frame frame = profiler.enter("include", location, writer);
+		try {
+			include(writer, scope);
+		} finally {
+			profiler.exit(frame, writer);
+		}
+	}
+
+	private void include(Appendable writer, Scope scope) throws IOException {
+		scope.renderTemplate(writer, String.valueOf(path.evaluate(scope)), evaluateParams(scope));
+	}
+
+	@SuppressWarnings("unchecked")
+	private Map<String, ?> evaluateParams(Scope scope) {
+		if (params == null) {
+			return Collections.emptyMap();
+		}
+		Object value = params.evaluate(scope);
+		if (!(value instanceof Map)) {
+			throw new TemplateRenderException("include params must be a map, but was %s",
+					value).addLocation(location);
+		}
+		return (Map<String, ?>) value;
+	}
+
+	static Tag getTag(Tokenizer tokenizer) {
+		Location location = tokenizer.getLocation();
+		Term path = tokenizer.parseTopLevelExpression();
+		Term params = tokenizer.tryConsume("with")
+				? tokenizer.parseTopLevelExpression()
+				: null;
+		return new IncludeNode(location, path, params);
+	}
+
+	@Override
+	public void handle(TemplateParser parser) {
+		parser.add(this);
+	}
+
+	@Override
+	public void encode(DataOutput out) throws IOException {
+		out.writeByte(NodeCodec.INCLUDE);
+		TermCodec.writeLocation(location, out);
+		TermCodec.write(path, out);
+		out.writeBoolean(params != null);
+		if (params != null) {
+			TermCodec.write(params, out);
+		}
+	}
+
+	static Node decode(DataInput in, Path path, Slots slots) throws IOException {
+		Location location = TermCodec.readLocation(in, path);
+		Term file = TermCodec.read(in, path, slots);
+		Term params = in.readBoolean() ? TermCodec.read(in, path, slots) : null;
+		return new IncludeNode(location, file, params);
+	}
+
+	@Override
+	public String toString() {
+		return params == null
+				? "include[" + path + "]"
+				: "include[" + path + " with " + params + "]";
+	}
+
+}
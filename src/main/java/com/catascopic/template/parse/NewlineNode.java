@@ -1,10 +1,11 @@
 package com.catascopic.template.parse;
 
+import java.io.DataOutput;
 import java.io.IOException;
 
 import com.catascopic.template.Scope;
 
-enum NewlineNode implements Node, Tag {
+enum NewlineNode implements Node, Tag, Encodable {
 
 	NEWLINE;
 
@@ -18,6 +19,11 @@ enum NewlineNode implements Node, Tag {
 		parser.add(this);
 	}
 
+	@Override
+	public void encode(DataOutput out) throws IOException {
+		out.writeByte(NodeCodec.NEWLINE);
+	}
+
 	@Override
 	public String toString() {
 		return "\n";
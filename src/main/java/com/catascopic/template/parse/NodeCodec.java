@@ -0,0 +1,144 @@
+package com.catascopic.template.parse;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import com.catascopic.template.Slots;
+import com.catascopic.template.expr.TermCodec;
+import com.catascopic.template.parse.Variables.NameAssigner;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Reads and writes parsed templates in a compact binary format, so that a
+ * template can be stored and loaded without parsing it again. Each node is
+ * written as a one-byte tag followed by its contents; expressions are written
+ * by {@link TermCodec}. A template begins with the names of its
+ * {@link Slots}.
+ */
+public final class NodeCodec {
+
+	private NodeCodec() {}
+
+	static final byte BLOCK = 1;
+	static final byte TEXT = 2;
+	static final byte NEWLINE = 3;
+	static final byte EMPTY = 4;
+	static final byte EVAL = 5;
+	static final byte FOR = 6;
+	static final byte IF = 7;
+	static final byte PRINT = 8;
+	static final byte SET = 9;
+	static final byte ROOT = 10;
+	static final byte INCLUDE = 11;
+
+	static final byte SINGLE_NAME = 1;
+	static final byte UNPACKER = 2;
+
+	static final byte ASSIGNMENT = 1;
+	static final byte ASSIGNMENTS = 2;
+
+	public static void write(Node node, DataOutput out) throws IOException {
+		encode(node, out);
+	}
+
+	/**
+	 * Reads a template written by {@link #write(Node, DataOutput)}.
+	 *
+	 * @param path the path of the template, used in its locations
+	 */
+	public static Node read(DataInput in, Path path) throws IOException {
+		byte tag = in.readByte();
+		if (tag != ROOT) {
+			throw new IOException("expected template, got tag " + tag);
+		}
+		return RootNode.decode(in, path);
+	}
+
+	static Node read(DataInput in, Path path, Slots slots) throws IOException {
+		byte tag = in.readByte();
+		switch (tag) {
+		case BLOCK:
+			return Block.decode(in, path, slots);
+		case TEXT:
+			return TextNode.decode(in);
+		case NEWLINE:
+			return NewlineNode.NEWLINE;
+		case EMPTY:
+			return EmptyNode.EMPTY_NODE;
+		case EVAL:
+			return EvalNode.decode(in, path, slots);
+		case FOR:
+			return ForNode.decode(in, path, slots);
+		case IF:
+			return IfNode.decode(in, path, slots);
+		case PRINT:
+			return PrintNode.decode(in, path, slots);
+		case SET:
+			return SetNode.decode(in, path, slots);
+		case INCLUDE:
+			return IncludeNode.decode(in, path, slots);
+		default:
+			throw new IOException("unknown node tag " + tag);
+		}
+	}
+
+	static Block readBlock(DataInput in, Path path, Slots slots) throws IOException {
+		byte tag = in.readByte();
+		if (tag != BLOCK) {
+			throw new IOException("expected block, got tag " + tag);
+		}
+		return Block.decode(in, path, slots);
+	}
+
+	static void writeNodes(List<Node> nodes, DataOutput out) throws IOException {
+		out.writeInt(nodes.size());
+		for (Node node : nodes) {
+			encode(node, out);
+		}
+	}
+
+	static ImmutableList<Node> readNodes(DataInput in, Path path, Slots slots) throws IOException {
+		int size = in.readInt();
+		ImmutableList.Builder<Node> builder = ImmutableList.builder();
+		for (int i = 0; i < size; i++) {
+			builder.add(read(in, path, slots));
+		}
+		return builder.build();
+	}
+
+	static NameAssigner readNames(DataInput in, Path path, Slots slots) throws IOException {
+		byte tag = in.readByte();
+		switch (tag) {
+		case SINGLE_NAME:
+			return Variables.SingleName.decode(in, slots);
+		case UNPACKER:
+			return Variables.Unpacker.decode(in, path, slots);
+		default:
+			throw new IOException("unknown name tag " + tag);
+		}
+	}
+
+	static Assigner readAssigner(DataInput in, Path path, Slots slots) throws IOException {
+		byte tag = in.readByte();
+		switch (tag) {
+		case ASSIGNMENT:
+			return Variables.Assignment.decode(in, path, slots);
+		case ASSIGNMENTS:
+			return Variables.Assignments.decode(in, path, slots);
+		default:
+			throw new IOException("unknown assigner tag " + tag);
+		}
+	}
+
+	static void encode(Object encodable, DataOutput out) throws IOException {
+		if (!(encodable instanceof Encodable)) {
+			throw new IllegalArgumentException(encodable.getClass().getName()
+					+ " cannot be encoded");
+		}
+		((Encodable) encodable).encode(out);
+	}
+
+}
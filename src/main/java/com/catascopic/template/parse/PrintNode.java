@@ -1,14 +1,19 @@
 package com.catascopic.template.parse;
 
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
+import java.nio.file.Path;
 
 import com.catascopic.template.Location;
 import com.catascopic.template.Scope;
+import com.catascopic.template.Slots;
 import com.catascopic.template.TemplateRenderException;
 import com.catascopic.template.expr.Term;
+import com.catascopic.template.expr.TermCodec;
 import com.catascopic.template.expr.Tokenizer;
 
-class PrintNode implements Node, Tag {
+class PrintNode implements Node, Tag, Encodable {
 
 	private final Term expression;
 	private final Location location;
@@ -36,6 +41,18 @@ class PrintNode implements Node, Tag {
 		parser.add(this);
 	}
 
+	@Override
+	public void encode(DataOutput out) throws IOException {
+		out.writeByte(NodeCodec.PRINT);
+		TermCodec.writeLocation(location, out);
+		TermCodec.write(expression, out);
+	}
+
+	static Node decode(DataInput in, Path path, Slots slots) throws IOException {
+		Location location = TermCodec.readLocation(in, path);
+		return new PrintNode(location, TermCodec.read(in, path, slots));
+	}
+
 	@Override
 	public String toString() {
 		return "print [" + expression + "]";
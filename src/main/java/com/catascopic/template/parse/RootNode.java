@@ -0,0 +1,59 @@
+package com.catascopic.template.parse;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import com.catascopic.template.Scope;
+import com.catascopic.template.Slots;
+import com.catascopic.template.expr.TermCodec;
+
+/**
+ * The outermost node of a template, which binds the scope it is rendered with
+ * to the template's {@link Slots}.
+ */
+class RootNode implements Node, Encodable {
+
+	private final Slots slots;
+	private final Block block;
+
+	RootNode(Slots slots, Block block) {
+		this.slots = slots;
+		this.block = block;
+	}
+
+	@Override
+	public void render(Appendable writer, Scope scope) throws IOException {
+		scope.bind(slots);
+		block.render(writer, scope);
+	}
+
+	@Override
+	public void encode(DataOutput out) throws IOException {
+		out.writeByte(NodeCodec.ROOT);
+		List<String> names = slots.names();
+		out.writeInt(names.size());
+		for (String name : names) {
+			TermCodec.writeString(name, out);
+		}
+		block.encode(out);
+	}
+
+	static Node decode(DataInput in, Path path) throws IOException {
+		// recreate the slots in the same order, before any are referenced
+		Slots slots = new Slots();
+		int size = in.readInt();
+		for (int i = 0; i < size; i++) {
+			slots.slot(TermCodec.readString(in));
+		}
+		return new RootNode(slots, NodeCodec.readBlock(in, path, slots));
+	}
+
+	@Override
+	public String toString() {
+		return block.toString();
+	}
+
+}
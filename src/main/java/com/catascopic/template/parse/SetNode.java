@@ -1,9 +1,16 @@
 package com.catascopic.template.parse;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import com.catascopic.template.Location;
 import com.catascopic.template.Scope;
+import com.catascopic.template.Slots;
 import com.catascopic.template.expr.Tokenizer;
 
-class SetNode implements Node, Tag {
+class SetNode implements Node, Encodable {
 
 	private final Assigner assigner;
 
@@ -16,13 +23,31 @@ class SetNode implements Node, Tag {
 		assigner.assign(scope);
 	}
 
+	static Tag parseTag(Tokenizer tokenizer) {
+		final Location location = tokenizer.getLocation();
+		final SetNode node = new SetNode(Variables.parseAssignment(tokenizer));
+		return new Tag() {
+
+			@Override
+			public void handle(TemplateParser parser) {
+				parser.addAssignment(node, location);
+			}
+
+			@Override
+			public String toString() {
+				return node.toString();
+			}
+		};
+	}
+
 	@Override
-	public void handle(TemplateParser parser) {
-		parser.add(this);
+	public void encode(DataOutput out) throws IOException {
+		out.writeByte(NodeCodec.SET);
+		NodeCodec.encode(assigner, out);
 	}
 
-	static Tag parseTag(Tokenizer tokenizer) {
-		return new SetNode(Variables.parseAssignment(tokenizer));
+	static Node decode(DataInput in, Path path, Slots slots) throws IOException {
+		return new SetNode(NodeCodec.readAssigner(in, path, slots));
 	}
 
 	@Override
@@ -3,6 +3,7 @@ package com.catascopic.template.parse;
 import java.io.IOException;
 import java.util.List;
 
+import com.catascopic.template.Slots;
 import com.catascopic.template.TemplateParseException;
 import com.catascopic.template.TrackingReader;
 import com.catascopic.template.expr.Symbol;
@@ -11,8 +12,14 @@ import com.google.common.base.CharMatcher;
 
 class TagParser {
 
+	private static final boolean[] DELIMITERS = TrackingReader.delimiters("\n@$#");
+
 	static List<Tag> parse(TrackingReader reader) throws IOException {
-		return new TagParser(reader).parse();
+		return parse(reader, new Slots());
+	}
+
+	static List<Tag> parse(TrackingReader reader, Slots slots) throws IOException {
+		return new TagParser(reader, slots).parse();
 	}
 
 	private List<Tag> parse() throws IOException {
@@ -24,11 +31,13 @@ class TagParser {
 	}
 
 	private TrackingReader reader;
+	private final Slots slots;
 	private TagCleaner tags = new TagCleaner();
 	private Mode mode = Mode.TEXT;
 
-	TagParser(TrackingReader reader) {
+	TagParser(TrackingReader reader, Slots slots) {
 		this.reader = reader;
+		this.slots = slots;
 	}
 
 	void setMode(Mode mode) {
@@ -76,7 +85,7 @@ class TagParser {
 	private String parseContent() throws IOException {
 		StringBuilder builder = new StringBuilder();
 		loop: for (;;) {
-			int ch = reader.read();
+			int ch = reader.readUntil(DELIMITERS, builder);
 			switch (ch) {
 			case -1:
 				mode = Mode.END;
@@ -115,7 +124,7 @@ class TagParser {
 	}
 
 	private void parseStatement() {
-		Tokenizer tokenizer = new Tokenizer(reader);
+		Tokenizer tokenizer = new Tokenizer(reader, slots);
 		Tag tag = getTag(tokenizer);
 		tags.statement(tag);
 		tokenizer.consume(Symbol.RIGHT_CURLY_BRACKET);
@@ -140,6 +149,8 @@ class TagParser {
 			return SetNode.parseTag(tokenizer);
 		case "print":
 			return PrintNode.getTag(tokenizer);
+		case "include":
+			return IncludeNode.getTag(tokenizer);
 		case "end":
 			return new EndTag(tokenizer.getLocation());
 		default:
@@ -148,7 +159,7 @@ class TagParser {
 	}
 
 	private void parseEval() {
-		Tokenizer tokenizer = new Tokenizer(reader);
+		Tokenizer tokenizer = new Tokenizer(reader, slots);
 		tags.text(EvalNode.getTag(tokenizer));
 		tokenizer.consume(Symbol.RIGHT_CURLY_BRACKET);
 		mode = Mode.TEXT;
@@ -7,6 +7,7 @@ import java.util.List;
 import java.util.Queue;
 
 import com.catascopic.template.Location;
+import com.catascopic.template.Slots;
 import com.catascopic.template.TemplateParseException;
 import com.catascopic.template.TrackingReader;
 import com.google.common.collect.ImmutableList;
@@ -18,12 +19,14 @@ public class TemplateParser {
 
 	public static Node parse(TrackingReader reader) throws IOException {
 		Location location = reader.getLocation();
-		return new TemplateParser().parse(TagParser.parse(reader), location);
+		Slots slots = new Slots();
+		Block block = new TemplateParser().parse(TagParser.parse(reader, slots), location);
+		return new RootNode(slots, block);
 	}
 
 	private Queue<BlockBuilder> stack = Collections.asLifoQueue(new ArrayDeque<BlockBuilder>());
 
-	private Node parse(List<Tag> tags, final Location location) {
+	private Block parse(List<Tag> tags, final Location location) {
 		final Builder<Node> builder = ImmutableList.builder();
 		BlockBuilder nodeBuilder = new BlockBuilder(location) {
 
@@ -61,6 +64,19 @@ public class TemplateParser {
 		stack.element().add(node);
 	}
 
+	/**
+	 * Adds a node that sets variables in the current scope.
+	 */
+	void addAssignment(Node node, Location location) {
+		for (BlockBuilder builder : stack) {
+			if (builder.isForked()) {
+				throw new TemplateParseException(location,
+						"variables cannot be set in " + builder);
+			}
+		}
+		add(node);
+	}
+
 	void beginBlock(BlockBuilder nodeBuilder) {
 		stack.add(nodeBuilder);
 	}
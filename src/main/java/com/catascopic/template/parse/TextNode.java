@@ -1,20 +1,35 @@
 package com.catascopic.template.parse;
 
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 
 import com.catascopic.template.Scope;
+import com.catascopic.template.EncodedOutput;
+import com.catascopic.template.expr.TermCodec;
 
-class TextNode implements Node, Tag {
+class TextNode implements Node, Tag, Encodable {
 
 	private final String text;
+	private final byte[] utf8;
 
-	private TextNode(String content) {
+	TextNode(String content) {
 		this.text = content;
+		this.utf8 = content.getBytes(StandardCharsets.UTF_8);
+	}
+
+	String text() {
+		return text;
 	}
 
 	@Override
 	public void render(Appendable writer, Scope scope) throws IOException {
-		writer.append(text);
+		if (writer instanceof EncodedOutput) {
+			((EncodedOutput) writer).appendEncoded(text, utf8);
+		} else {
+			writer.append(text);
+		}
 	}
 
 	static Tag getTag(String text) {
@@ -26,6 +41,16 @@ class TextNode implements Node, Tag {
 		parser.add(this);
 	}
 
+	@Override
+	public void encode(DataOutput out) throws IOException {
+		out.writeByte(NodeCodec.TEXT);
+		TermCodec.writeString(text, out);
+	}
+
+	static Node decode(DataInput in) throws IOException {
+		return new TextNode(TermCodec.readString(in));
+	}
+
 	@Override
 	public String toString() {
 		return text;
@@ -1,5 +1,9 @@
 package com.catascopic.template.parse;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -8,10 +12,13 @@ import java.util.Set;
 
 import com.catascopic.template.Location;
 import com.catascopic.template.Scope;
+import com.catascopic.template.Slots;
+import com.catascopic.template.Slots.Slot;
 import com.catascopic.template.TemplateRenderException;
 import com.catascopic.template.TemplateParseException;
 import com.catascopic.template.expr.Symbol;
 import com.catascopic.template.expr.Term;
+import com.catascopic.template.expr.TermCodec;
 import com.catascopic.template.expr.Tokenizer;
 import com.catascopic.template.value.Values;
 import com.google.common.base.Joiner;
@@ -26,27 +33,35 @@ class Variables {
 		return parseNames(tokenizer, new HashSet<String>());
 	}
 
+	/**
+	 * Parses a list of names whose first name has already been consumed.
+	 */
+	static NameAssigner parseNames(Tokenizer tokenizer, String first) {
+		return parseNames(tokenizer, new HashSet<String>(), false, first);
+	}
+
 	private static NameAssigner parseNames(Tokenizer tokenizer,
 			Set<String> unique) {
-		return parseNames(tokenizer, unique, false);
+		return parseNames(tokenizer, unique, false, null);
 	}
 
 	private static NameAssigner parseNames(Tokenizer tokenizer,
-			Set<String> unique, boolean forceUnpack) {
+			Set<String> unique, boolean forceUnpack, String first) {
 		Location location = tokenizer.getLocation();
 		List<NameAssigner> assigners = new ArrayList<>();
 		do {
 			NameAssigner assigner;
-			if (tokenizer.tryConsume(Symbol.LEFT_PARENTHESIS)) {
-				assigner = parseNames(tokenizer, unique, true);
+			if (first == null && tokenizer.tryConsume(Symbol.LEFT_PARENTHESIS)) {
+				assigner = parseNames(tokenizer, unique, true, null);
 				tokenizer.consume(Symbol.RIGHT_PARENTHESIS);
 			} else {
-				String name = tokenizer.parseIdentifier();
+				String name = first == null ? tokenizer.parseIdentifier() : first;
+				first = null;
 				if (!unique.add(name)) {
 					throw new TemplateParseException(tokenizer,
 							"duplicate variable name: %s", name);
 				}
-				assigner = new SingleName(name);
+				assigner = new SingleName(tokenizer.slot(name));
 			}
 			assigners.add(assigner);
 		} while (tokenizer.tryConsume(Symbol.COMMA));
@@ -62,43 +77,18 @@ class Variables {
 		do {
 			builder.add(parseAssigner(tokenizer, unique));
 		} while (tokenizer.tryConsume(Symbol.COMMA));
-		final List<Assigner> assigners = builder.build();
+		ImmutableList<Assigner> assigners = builder.build();
 		if (assigners.size() == 1) {
 			return assigners.get(0);
 		}
-		return new Assigner() {
-
-			@Override
-			public void assign(Scope scope) {
-				for (Assigner assigner : assigners) {
-					assigner.assign(scope);
-				}
-			}
-
-			@Override
-			public String toString() {
-				return Joiner.on(", ").join(assigners);
-			}
-		};
+		return new Assignments(assigners);
 	}
 
 	private static Assigner parseAssigner(Tokenizer tokenizer,
 			Set<String> unique) {
-		final NameAssigner names = parseNames(tokenizer, unique);
+		NameAssigner names = parseNames(tokenizer, unique);
 		tokenizer.consume(Symbol.ASSIGNMENT);
-		final Term term = tokenizer.parseTopLevelExpression();
-		return new Assigner() {
-
-			@Override
-			public void assign(Scope scope) {
-				names.assign(scope, term.evaluate(scope));
-			}
-
-			@Override
-			public String toString() {
-				return names + " = " + term;
-			}
-		};
+		return new Assignment(names, tokenizer.parseTopLevelExpression());
 	}
 
 	static final Assigner EMPTY = new Assigner() {
@@ -114,6 +104,78 @@ class Variables {
 		}
 	};
 
+	static class Assignments implements Assigner, Encodable {
+
+		private final List<Assigner> assigners;
+
+		Assignments(ImmutableList<Assigner> assigners) {
+			this.assigners = assigners;
+		}
+
+		@Override
+		public void assign(Scope scope) {
+			for (Assigner assigner : assigners) {
+				assigner.assign(scope);
+			}
+		}
+
+		@Override
+		public void encode(DataOutput out) throws IOException {
+			out.writeByte(NodeCodec.ASSIGNMENTS);
+			out.writeInt(assigners.size());
+			for (Assigner assigner : assigners) {
+				NodeCodec.encode(assigner, out);
+			}
+		}
+
+		static Assigner decode(DataInput in, Path path, Slots slots) throws IOException {
+			int size = in.readInt();
+			ImmutableList.Builder<Assigner> builder = ImmutableList.builder();
+			for (int i = 0; i < size; i++) {
+				builder.add(NodeCodec.readAssigner(in, path, slots));
+			}
+			return new Assignments(builder.build());
+		}
+
+		@Override
+		public String toString() {
+			return Joiner.on(", ").join(assigners);
+		}
+	}
+
+	static class Assignment implements Assigner, Encodable {
+
+		private final NameAssigner names;
+		private final Term term;
+
+		Assignment(NameAssigner names, Term term) {
+			this.names = names;
+			this.term = term;
+		}
+
+		@Override
+		public void assign(Scope scope) {
+			names.assign(scope, term.evaluate(scope));
+		}
+
+		@Override
+		public void encode(DataOutput out) throws IOException {
+			out.writeByte(NodeCodec.ASSIGNMENT);
+			NodeCodec.encode(names, out);
+			TermCodec.write(term, out);
+		}
+
+		static Assigner decode(DataInput in, Path path, Slots slots) throws IOException {
+			NameAssigner names = NodeCodec.readNames(in, path, slots);
+			return new Assignment(names, TermCodec.read(in, path, slots));
+		}
+
+		@Override
+		public String toString() {
+			return names + " = " + term;
+		}
+	}
+
 	/**
 	 * Assigns a value to a particular name, or unpacks a sequence into several
 	 * names.
@@ -123,26 +185,36 @@ class Variables {
 		void assign(Scope scope, Object value);
 	}
 
-	private static class SingleName implements NameAssigner {
+	static class SingleName implements NameAssigner, Encodable {
 
-		private final String name;
+		private final Slot slot;
 
-		SingleName(String varName) {
-			this.name = varName;
+		SingleName(Slot slot) {
+			this.slot = slot;
 		}
 
 		@Override
 		public void assign(Scope scope, Object value) {
-			scope.set(name, value);
+			scope.set(slot, value);
+		}
+
+		@Override
+		public void encode(DataOutput out) throws IOException {
+			out.writeByte(NodeCodec.SINGLE_NAME);
+			TermCodec.writeString(slot.name(), out);
+		}
+
+		static NameAssigner decode(DataInput in, Slots slots) throws IOException {
+			return new SingleName(slots.slot(TermCodec.readString(in)));
 		}
 
 		@Override
 		public String toString() {
-			return name;
+			return slot.name();
 		}
 	}
 
-	private static class Unpacker implements NameAssigner {
+	static class Unpacker implements NameAssigner, Encodable {
 
 		private final List<NameAssigner> assigners;
 		private final Location location;
@@ -174,6 +246,26 @@ class Variables {
 			}
 		}
 
+		@Override
+		public void encode(DataOutput out) throws IOException {
+			out.writeByte(NodeCodec.UNPACKER);
+			TermCodec.writeLocation(location, out);
+			out.writeInt(assigners.size());
+			for (NameAssigner assigner : assigners) {
+				NodeCodec.encode(assigner, out);
+			}
+		}
+
+		static NameAssigner decode(DataInput in, Path path, Slots slots) throws IOException {
+			Location location = TermCodec.readLocation(in, path);
+			int size = in.readInt();
+			ImmutableList.Builder<NameAssigner> builder = ImmutableList.builder();
+			for (int i = 0; i < size; i++) {
+				builder.add(NodeCodec.readNames(in, path, slots));
+			}
+			return new Unpacker(builder.build(), location);
+		}
+
 		@Override
 		public String toString() {
 			return "(" + Joiner.on(", ").join(assigners) + ")";
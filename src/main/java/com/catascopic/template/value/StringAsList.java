@@ -5,9 +5,9 @@ import java.util.RandomAccess;
 
 class StringAsList extends AbstractList<String> implements RandomAccess {
 
-	private final String str;
+	private final CharSequence str;
 
-	StringAsList(String str) {
+	StringAsList(CharSequence str) {
 		this.str = str;
 	}
 
@@ -40,8 +40,8 @@ public final class Values {
 		if (value instanceof Number) {
 			return ((Number) value).intValue() != 0;
 		}
-		if (value instanceof String) {
-			return !((String) value).isEmpty();
+		if (value instanceof CharSequence) {
+			return ((CharSequence) value).length() != 0;
 		}
 		if (value instanceof Collection) {
 			return !((Collection<?>) value).isEmpty();
@@ -59,14 +59,14 @@ public final class Values {
 		if (value instanceof Number) {
 			return (Number) value;
 		}
-		if (value instanceof String) {
-			return parseNumber((String) value);
+		if (value instanceof CharSequence) {
+			return parseNumber(value.toString());
 		}
 		if (value instanceof Boolean) {
 			return (Boolean) value ? 1 : 0;
 		}
 		throw new TemplateRenderException("cannot convert <%s> (%s) to a number",
-				value, value.getClass().getName());
+				value, typeName(value));
 	}
 
 	private static Number tryConvertNumber(Object value) {
@@ -76,8 +76,8 @@ public final class Values {
 		if (value instanceof Boolean) {
 			return (Boolean) value ? 1 : 0;
 		}
-		if (value instanceof String) {
-			String str = (String) value;
+		if (value instanceof CharSequence) {
+			String str = value.toString();
 			try {
 				if (str.indexOf('.') != -1) {
 					return Double.parseDouble(str);
@@ -98,7 +98,7 @@ public final class Values {
 			return Integer.parseInt(value);
 		} catch (NumberFormatException e) {
 			throw new TemplateRenderException(e, "cannot convert <%s> (%s) to a number",
-					value, value.getClass().getName());
+					value, typeName(value));
 		}
 	}
 
@@ -115,6 +115,9 @@ public final class Values {
 	}
 
 	public static Object add(Object o1, Object o2) {
+		if (o1 instanceof Integer && o2 instanceof Integer) {
+			return (Integer) o1 + (Integer) o2;
+		}
 		if (o1 instanceof Number) {
 			Number n1 = (Number) o1;
 			if (o2 instanceof Number) {
@@ -146,6 +149,9 @@ public final class Values {
 	}
 
 	public static Object multiply(Object o1, Object o2) {
+		if (o1 instanceof Integer && o2 instanceof Integer) {
+			return (Integer) o1 * (Integer) o2;
+		}
 		Number n1 = tryConvertNumber(o1);
 		Number n2 = tryConvertNumber(o2);
 		if (n1 == null) {
@@ -179,6 +185,9 @@ public final class Values {
 	}
 
 	public static Number modulo(Object o1, Object o2) {
+		if (o1 instanceof Integer && o2 instanceof Integer) {
+			return (Integer) o1 % (Integer) o2;
+		}
 		Number n1 = toNumber(o1);
 		Number n2 = toNumber(o2);
 		if (n1 instanceof Integer && n2 instanceof Integer) {
@@ -198,22 +207,32 @@ public final class Values {
 		if (iterable instanceof Iterable) {
 			return (Iterable<?>) iterable;
 		}
-		if (iterable instanceof String) {
-			return new StringAsList((String) iterable);
+		if (iterable instanceof CharSequence) {
+			return new StringAsList((CharSequence) iterable);
 		}
 		throw new TemplateRenderException("<%s> (%s) is not iterable", iterable,
-				iterable.getClass().getName());
+				typeName(iterable));
 	}
 
 	public static boolean equal(Object o1, Object o2) {
+		if (o1 instanceof Integer && o2 instanceof Integer) {
+			return ((Integer) o1).intValue() == ((Integer) o2).intValue();
+		}
 		// allow for int and double with equal value
 		if (o1 instanceof Number && o2 instanceof Number) {
 			return compare((Number) o1, (Number) o2) == 0;
 		}
+		// a text file may be a CharSequence other than a String
+		if (o1 instanceof CharSequence && o2 instanceof CharSequence) {
+			return o1.toString().contentEquals((CharSequence) o2);
+		}
 		return Objects.equals(o1, o2);
 	}
 
 	public static int compare(Object o1, Object o2) {
+		if (o1 instanceof Integer && o2 instanceof Integer) {
+			return Integer.compare((Integer) o1, (Integer) o2);
+		}
 		return compare(toNumber(o1), toNumber(o2));
 	}
 
@@ -266,8 +285,8 @@ public final class Values {
 	}
 
 	public static int len(Object obj) {
-		if (obj instanceof String) {
-			return ((String) obj).length();
+		if (obj instanceof CharSequence) {
+			return ((CharSequence) obj).length();
 		}
 		if (obj instanceof Collection) {
 			return ((Collection<?>) obj).size();
@@ -276,12 +295,12 @@ public final class Values {
 			return ((Map<?, ?>) obj).size();
 		}
 		throw new TemplateRenderException("<%s> (%s) does not have a length",
-				obj, obj.getClass().getName());
+				obj, typeName(obj));
 	}
 
 	public static Object indexOf(Object seq, Object item) {
-		if (seq instanceof String) {
-			return ((String) seq).indexOf(requireString(item));
+		if (seq instanceof CharSequence) {
+			return seq.toString().indexOf(requireString(item));
 		}
 		if (seq instanceof List) {
 			return ((List<?>) seq).indexOf(item);
@@ -290,8 +309,8 @@ public final class Values {
 	}
 
 	public static Object indexOf(Object seq, Object item, int fromIndex) {
-		if (seq instanceof String) {
-			return ((String) seq).indexOf(requireString(item), fromIndex);
+		if (seq instanceof CharSequence) {
+			return seq.toString().indexOf(requireString(item), fromIndex);
 		}
 		if (seq instanceof List) {
 			List<?> list = (List<?>) seq;
@@ -301,8 +320,8 @@ public final class Values {
 	}
 
 	public static Object lastIndexOf(Object seq, Object item) {
-		if (seq instanceof String) {
-			return ((String) seq).lastIndexOf(requireString(item));
+		if (seq instanceof CharSequence) {
+			return seq.toString().lastIndexOf(requireString(item));
 		}
 		if (seq instanceof List) {
 			return ((List<?>) seq).lastIndexOf(item);
@@ -311,8 +330,8 @@ public final class Values {
 	}
 
 	public static Object lastIndexOf(Object seq, Object item, int fromIndex) {
-		if (seq instanceof String) {
-			return ((String) seq).lastIndexOf(requireString(item), fromIndex);
+		if (seq instanceof CharSequence) {
+			return seq.toString().lastIndexOf(requireString(item), fromIndex);
 		}
 		if (seq instanceof List) {
 			return ((List<?>) seq).subList(0, fromIndex).lastIndexOf(item);
@@ -321,16 +340,24 @@ public final class Values {
 	}
 
 	private static String requireString(Object item) {
-		if (!(item instanceof String)) {
+		if (!(item instanceof CharSequence)) {
 			throw new TemplateRenderException("<%s> (%s) is not a String",
-					item, item.getClass().getName());
+					item, typeName(item));
 		}
-		return (String) item;
+		return item.toString();
+	}
+
+	/**
+	 * Returns the class name of the given value for an error message, or
+	 * <code>"null"</code>.
+	 */
+	public static String typeName(Object obj) {
+		return obj == null ? "null" : obj.getClass().getName();
 	}
 
 	private static TemplateRenderException notSequence(Object obj) {
 		return new TemplateRenderException("<%s> (%s) is not a sequence",
-				obj, obj.getClass().getName());
+				obj, typeName(obj));
 	}
 
 	public static List<Integer> range(int stop) {
@@ -374,7 +401,7 @@ public final class Values {
 		return slice(list, start, stop, null);
 	}
 
-	public static String slice(String str, Integer start, Integer stop, Integer step) {
+	public static String slice(CharSequence str, Integer start, Integer stop, Integer step) {
 		StringBuilder builder = new StringBuilder();
 		for (int i : sliceRange(start, stop, step, str.length())) {
 			builder.append(str.charAt(i));
@@ -431,14 +458,14 @@ public final class Values {
 	}
 
 	public static Object slice(Object seq, Integer start, Integer stop, Integer step) {
-		if (seq instanceof String) {
-			return slice((String) seq, start, stop, step);
+		if (seq instanceof CharSequence) {
+			return slice((CharSequence) seq, start, stop, step);
 		}
 		if (seq instanceof List) {
 			return slice((List<?>) seq, start, stop, step);
 		}
 		throw new TemplateRenderException("<%s> (%s) is not indexable",
-				seq, seq.getClass().getName());
+				seq, typeName(seq));
 	}
 
 	public static Object index(Object indexable, Object index) {
@@ -453,14 +480,14 @@ public final class Values {
 		if (seq instanceof List) {
 			return index((List<?>) seq, index);
 		}
-		if (seq instanceof String) {
-			return index((String) seq, index);
+		if (seq instanceof CharSequence) {
+			return index((CharSequence) seq, index);
 		}
 		throw new TemplateRenderException("<%s> (%s) is not indexable",
-				seq, seq.getClass().getName());
+				seq, typeName(seq));
 	}
 
-	public static String index(String str, int index) {
+	public static String index(CharSequence str, int index) {
 		return String.valueOf(str.charAt(getIndex(index, str.length())));
 	}
 
@@ -514,7 +541,7 @@ public final class Values {
 			Number n = tryConvertNumber(value);
 			if (n == null) {
 				throw new TemplateRenderException("cannot convert <%s> (%s) to a number",
-						value, value.getClass().getName());
+						value, typeName(value));
 			}
 			sum += n.doubleValue();
 		}
@@ -570,8 +597,8 @@ public final class Values {
 	}
 
 	public static String uneval(Object obj) {
-		if (obj instanceof String) {
-			return escape((String) obj);
+		if (obj instanceof CharSequence) {
+			return escape(obj.toString());
 		}
 		if (obj instanceof Iterable) {
 			return uneval((Iterable<?>) obj);
@@ -586,7 +613,7 @@ public final class Values {
 			return "null";
 		}
 		throw new TemplateRenderException("<%s> (%s) has no evaluable string form",
-				obj, obj.getClass().getName());
+				obj, typeName(obj));
 	}
 
 	public static String uneval(Iterable<?> iterable) {
@@ -615,7 +642,7 @@ public final class Values {
 			Object key = entry.getKey();
 			if (!(key instanceof String)) {
 				throw new TemplateRenderException("key <%s> (%s) is not a String",
-						key, key.getClass().getName());
+						key, typeName(key));
 			}
 			builder.append(escape((String) key)).append(": ").append(uneval(entry.getValue()));
 			if (!iter.hasNext()) {
@@ -0,0 +1,208 @@
+package com.catascopic.template;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.MoreExecutors;
+
+public class BatchRenderTest {
+
+	private static final Template TEMPLATE = Template.parse(
+			"Dear ${name},@{if vip} thanks!@{end}@{set n = len(name)}${n}");
+
+	private static List<Map<String, Object>> inputs(int count) {
+		List<Map<String, Object>> inputs = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			inputs.add(ImmutableMap.<String, Object> of("name", "user" + i, "vip", i % 2 == 0));
+		}
+		return inputs;
+	}
+
+	@Test
+	public void testSequential() throws IOException {
+		final List<String> outputs = new ArrayList<>();
+		TEMPLATE.renderAll(Arrays.asList(
+				ImmutableMap.<String, Object> of("name", "ann", "vip", true),
+				ImmutableMap.<String, Object> of("name", "bob", "vip", false))
+				.iterator(), new RenderSink<Map<String, Object>>() {
+
+					@Override
+					public void accept(Map<String, Object> params, CharSequence output) {
+						outputs.add(output.toString());
+					}
+				});
+		Assert.assertEquals(Arrays.asList("Dear ann, thanks!3", "Dear bob,3"), outputs);
+	}
+
+	@Test
+	public void testSameAsRender() throws IOException {
+		final List<String> outputs = new ArrayList<>();
+		List<Map<String, Object>> inputs = inputs(20);
+		TEMPLATE.renderAll(inputs.iterator(), new RenderSink<Map<String, Object>>() {
+
+			@Override
+			public void accept(Map<String, Object> params, CharSequence output) {
+				outputs.add(output.toString());
+			}
+		});
+		for (int i = 0; i < inputs.size(); i++) {
+			Assert.assertEquals(TEMPLATE.render(inputs.get(i)), outputs.get(i));
+		}
+	}
+
+	@Test
+	public void testExecutor() throws IOException {
+		final ConcurrentMap<Map<String, Object>, String> outputs = new ConcurrentHashMap<>();
+		List<Map<String, Object>> inputs = inputs(1000);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			TEMPLATE.renderAll(inputs.iterator(), new RenderSink<Map<String, Object>>() {
+
+				@Override
+				public void accept(Map<String, Object> params, CharSequence output) {
+					outputs.put(params, output.toString());
+				}
+			}, executor, 4);
+		} finally {
+			executor.shutdown();
+		}
+		Assert.assertEquals(inputs.size(), outputs.size());
+		for (Map<String, Object> params : inputs) {
+			Assert.assertEquals(TEMPLATE.render(params), outputs.get(params));
+		}
+	}
+
+	@Test
+	public void testNullParams() throws IOException {
+		final List<String> outputs = new ArrayList<>();
+		try {
+			TEMPLATE.renderAll(Arrays.asList(
+					ImmutableMap.<String, Object> of("name", "ann", "vip", true),
+					null,
+					ImmutableMap.<String, Object> of("name", "bob", "vip", false))
+					.iterator(), new RenderSink<Map<String, Object>>() {
+
+						@Override
+						public void accept(Map<String, Object> params, CharSequence output) {
+							outputs.add(output.toString());
+						}
+					});
+			Assert.fail();
+		} catch (NullPointerException e) {
+			Assert.assertEquals(Arrays.asList("Dear ann, thanks!3"), outputs);
+		}
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void testNullParamsWithExecutor() throws IOException {
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			List<Map<String, Object>> inputs = inputs(100);
+			inputs.set(50, null);
+			TEMPLATE.renderAll(inputs.iterator(), new RenderSink<Map<String, Object>>() {
+
+				@Override
+				public void accept(Map<String, Object> params, CharSequence output) {
+					// discarded
+				}
+			}, executor, 2);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testSinkFailure() throws IOException {
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			TEMPLATE.renderAll(inputs(100).iterator(), new RenderSink<Map<String, Object>>() {
+
+				@Override
+				public void accept(Map<String, Object> params, CharSequence output)
+						throws IOException {
+					throw new IOException();
+				}
+			}, executor, 2);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNoParallelism() throws IOException {
+		TEMPLATE.renderAll(inputs(1).iterator(), new RenderSink<Map<String, Object>>() {
+
+			@Override
+			public void accept(Map<String, Object> params, CharSequence output) {
+				Assert.fail();
+			}
+		}, MoreExecutors.directExecutor(), 0);
+	}
+
+	@Test
+	public void testRejected() throws IOException {
+		final List<Future<?>> tasks = new ArrayList<>();
+		Executor executor = new Executor() {
+
+			@Override
+			public void execute(Runnable command) {
+				if (!tasks.isEmpty()) {
+					throw new RejectedExecutionException();
+				}
+				tasks.add((Future<?>) command);
+				new Thread(command).start();
+			}
+		};
+		try {
+			TEMPLATE.renderAll(inputs(100000).iterator(), new RenderSink<Map<String, Object>>() {
+
+				@Override
+				public void accept(Map<String, Object> params, CharSequence output) {
+					// discarded
+				}
+			}, executor, 2);
+			Assert.fail();
+		} catch (RejectedExecutionException e) {
+			Assert.assertTrue(tasks.get(0).isDone());
+		}
+	}
+
+	@Test
+	public void testErrorStopsBatch() throws IOException {
+		final AtomicInteger calls = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			TEMPLATE.renderAll(inputs(1000).iterator(), new RenderSink<Map<String, Object>>() {
+
+				@Override
+				public void accept(Map<String, Object> params, CharSequence output) {
+					if (calls.getAndIncrement() == 0) {
+						throw new AssertionError("sink");
+					}
+				}
+			}, executor, 2);
+			Assert.fail();
+		} catch (AssertionError e) {
+			Assert.assertEquals("sink", e.getMessage());
+			Assert.assertTrue(calls.get() <= 2);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+}
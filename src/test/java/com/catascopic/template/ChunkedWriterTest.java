@@ -0,0 +1,90 @@
+package com.catascopic.template;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+public class ChunkedWriterTest {
+
+	private static final Template TEMPLATE = Template.parse(
+			"header\n@{for n in range(5)}row ${n}\n@{end}footer");
+
+	private static class RecordingWriter extends StringWriter {
+
+		final List<Integer> writes = new ArrayList<>();
+		final List<Integer> flushes = new ArrayList<>();
+
+		@Override
+		public void write(char[] cbuf, int off, int len) {
+			writes.add(len);
+			super.write(cbuf, off, len);
+		}
+
+		@Override
+		public void flush() {
+			flushes.add(getBuffer().length());
+		}
+	}
+
+	@Test
+	public void testChunks() throws IOException {
+		RecordingWriter out = new RecordingWriter();
+		ChunkedWriter writer = new ChunkedWriter(out, 4, Long.MAX_VALUE);
+		TEMPLATE.render(writer, ImmutableMap.<String, Object> of());
+		Assert.assertTrue(out.flushes.isEmpty());
+		writer.flush();
+		Assert.assertEquals(TEMPLATE.render(ImmutableMap.<String, Object> of()),
+				out.toString());
+		for (int length : out.writes) {
+			Assert.assertTrue(length <= 4);
+		}
+	}
+
+	@Test
+	public void testAppendNull() throws IOException {
+		StringWriter out = new StringWriter();
+		new ChunkedWriter(out).append(null).append(null, 1, 3).flush();
+		Assert.assertEquals("nullul", out.toString());
+	}
+
+	@Test
+	public void testFlushEveryIteration() throws IOException {
+		RecordingWriter out = new RecordingWriter();
+		ChunkedWriter writer = new ChunkedWriter(out, 1024, 0);
+		TEMPLATE.render(writer, ImmutableMap.<String, Object> of());
+		Assert.assertEquals(
+				ImmutableList.of(13, 19, 25, 31, 37), out.flushes);
+	}
+
+	@Test
+	public void testFlushThreshold() throws IOException {
+		RecordingWriter out = new RecordingWriter();
+		ChunkedWriter writer = new ChunkedWriter(out, 1024, 12);
+		TEMPLATE.render(writer, ImmutableMap.<String, Object> of());
+		Assert.assertEquals(ImmutableList.of(13, 25, 37), out.flushes);
+	}
+
+	@Test
+	public void testUtf8OutputFlushThreshold() throws IOException {
+		final List<Integer> flushes = new ArrayList<>();
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream() {
+
+			@Override
+			public void flush() {
+				flushes.add(size());
+			}
+		};
+		Utf8Output output = new Utf8Output(bytes, 12);
+		TEMPLATE.render(output, ImmutableMap.<String, Object> of());
+		Assert.assertEquals(ImmutableList.of(13, 25, 37), flushes);
+	}
+
+}
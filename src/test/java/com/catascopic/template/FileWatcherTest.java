@@ -0,0 +1,130 @@
+package com.catascopic.template;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+
+public class FileWatcherTest {
+
+	private static final long TIMEOUT_MILLIS = 10000;
+
+	private static class RecordingListener implements FileWatcher.Listener {
+
+		final BlockingQueue<Set<Path>> changes = new LinkedBlockingQueue<>();
+
+		@Override
+		public void changed(Set<Path> files) {
+			changes.add(files);
+		}
+
+		@Override
+		public void overflow() {
+			Assert.fail("overflow");
+		}
+
+		void awaitChange(Path file) throws InterruptedException {
+			long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+			for (;;) {
+				Set<Path> files = changes.poll(
+						deadline - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+				if (files == null) {
+					Assert.fail("no change reported for " + file);
+				}
+				if (files.contains(file)) {
+					return;
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testChangedFile() throws Exception {
+		Path dir = Files.createTempDirectory("watch").toAbsolutePath().normalize();
+		Path file = dir.resolve("a.txt");
+		write(file, "first");
+		RecordingListener listener = new RecordingListener();
+		FileWatcher watcher = new FileWatcher(dir, listener);
+		try {
+			write(file, "second");
+			listener.awaitChange(file);
+		} finally {
+			watcher.close();
+		}
+	}
+
+	@Test
+	public void testNewDirectoryRegistered() throws Exception {
+		Path dir = Files.createTempDirectory("watch").toAbsolutePath().normalize();
+		RecordingListener listener = new RecordingListener();
+		FileWatcher watcher = new FileWatcher(dir, listener);
+		try {
+			Path sub = Files.createDirectory(dir.resolve("sub"));
+			listener.awaitChange(sub);
+			Path file = sub.resolve("a.txt");
+			write(file, "content");
+			listener.awaitChange(file);
+		} finally {
+			watcher.close();
+		}
+	}
+
+	@Test
+	public void testCloseStopsThread() throws Exception {
+		Path dir = Files.createTempDirectory("watch").toAbsolutePath().normalize();
+		FileWatcher watcher = new FileWatcher(dir, new RecordingListener());
+		Thread thread = findThread("template-watcher " + dir);
+		Assert.assertTrue(thread.isDaemon());
+		watcher.close();
+		thread.join(TIMEOUT_MILLIS);
+		Assert.assertFalse(thread.isAlive());
+	}
+
+	@Test
+	public void testRenamedDirectoryInvalidated() throws Exception {
+		Path dir = Files.createTempDirectory("watch").toAbsolutePath().normalize();
+		Path sub = Files.createDirectory(dir.resolve("sub"));
+		Path template = sub.resolve("a.template");
+		write(template, "a");
+		try (TemplateEngine engine = TemplateEngine.builder().watch(dir, false).build()) {
+			Assert.assertEquals("a", engine.render(template, ImmutableMap.<String, Object> of()));
+			Files.move(sub, dir.resolve("moved"));
+			long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+			for (;;) {
+				try {
+					engine.render(template, ImmutableMap.<String, Object> of());
+				} catch (TemplateRenderException e) {
+					// the cached template was invalidated, and the file is gone
+					break;
+				}
+				if (System.currentTimeMillis() > deadline) {
+					Assert.fail("template under renamed directory was not invalidated");
+				}
+				Thread.sleep(10);
+			}
+		}
+	}
+
+	private static Thread findThread(String name) {
+		for (Thread thread : Thread.getAllStackTraces().keySet()) {
+			if (thread.getName().equals(name)) {
+				return thread;
+			}
+		}
+		throw new AssertionError("no thread " + name);
+	}
+
+	private static void write(Path file, String content) throws IOException {
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+	}
+
+}
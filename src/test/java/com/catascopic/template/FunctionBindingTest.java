@@ -0,0 +1,66 @@
+package com.catascopic.template;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.catascopic.template.parse.Node;
+import com.catascopic.template.parse.TemplateParser;
+import com.google.common.collect.ImmutableMap;
+
+public class FunctionBindingTest {
+
+	@Test
+	public void testRebindForOtherSettings() throws IOException {
+		Node node = TemplateParser.parse(TrackingReader.create(
+				new StringReader("${greet(name)}")));
+		Settings hello = Settings.builder().addFunction("greet", new TemplateFunction() {
+
+			@Override
+			public Object apply(Params params) {
+				return "hello " + params.getString(0);
+			}
+		}).build();
+		Settings bye = Settings.builder().addFunction("greet", new TemplateFunction() {
+
+			@Override
+			public Object apply(Params params) {
+				return "bye " + params.getString(0);
+			}
+		}).build();
+		Assert.assertEquals("hello x", render(node, hello));
+		Assert.assertEquals("hello x", render(node, hello));
+		Assert.assertEquals("bye x", render(node, bye));
+		Assert.assertEquals("hello x", render(node, hello));
+		try {
+			render(node, Settings.DEFAULT);
+			Assert.fail();
+		} catch (TemplateRenderException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testFixedArityDefaultsToParams() throws IOException {
+		Node node = TemplateParser.parse(TrackingReader.create(
+				new StringReader("${count()} ${count(1)} ${count(1, 2)} ${count(1, 2, 3)} "
+						+ "${count(1, 2, 3, 4)} ${upper(name)} ${str(null)}")));
+		Settings settings = Settings.builder().addFunction("count", new TemplateFunction() {
+
+			@Override
+			public Object apply(Params params) {
+				return params.size();
+			}
+		}).build();
+		Assert.assertEquals("0 1 2 3 4 X null", render(node, settings));
+	}
+
+	private static String render(Node node, Settings settings) throws IOException {
+		StringBuilder builder = new StringBuilder();
+		node.render(builder, new BasicScope(ImmutableMap.of("name", "x"), settings));
+		return builder.toString();
+	}
+
+}
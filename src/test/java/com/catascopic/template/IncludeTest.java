@@ -0,0 +1,82 @@
+package com.catascopic.template;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.catascopic.template.parse.Node;
+import com.catascopic.template.parse.NodeCodec;
+import com.google.common.collect.ImmutableMap;
+
+public class IncludeTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testInclude() throws IOException {
+		Path dir = folder.getRoot().toPath();
+		write(dir.resolve("outer.template"),
+				"<@{for n in values}@{include 'inner.template' with {m: n * 2}}@{end}>");
+		write(dir.resolve("inner.template"), "(${n},${m})");
+		Assert.assertEquals("<(1,2)(2,4)>", TemplateEngine.create().render(
+				dir.resolve("outer.template"),
+				ImmutableMap.of("values", Arrays.asList(1, 2))));
+	}
+
+	@Test
+	public void testIncludeWithoutParams() throws IOException {
+		Path dir = folder.getRoot().toPath();
+		write(dir.resolve("outer.template"), "a@{include name + '.template'}c");
+		write(dir.resolve("b.template"), "${name}");
+		Assert.assertEquals("abc", TemplateEngine.create().render(
+				dir.resolve("outer.template"), ImmutableMap.of("name", "b")));
+	}
+
+	@Test
+	public void testIncludeToStream() throws IOException {
+		Path dir = folder.getRoot().toPath();
+		write(dir.resolve("outer.template"), "@{include 'inner.template'}!");
+		write(dir.resolve("inner.template"), "caf\u00e9");
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		TemplateEngine.create().render(dir.resolve("outer.template"), out,
+				ImmutableMap.<String, Object> of());
+		Assert.assertEquals("caf\u00e9!", new String(out.toByteArray(), StandardCharsets.UTF_8));
+	}
+
+	@Test(expected = TemplateRenderException.class)
+	public void testParamsMustBeMap() throws IOException {
+		Path dir = folder.getRoot().toPath();
+		write(dir.resolve("outer.template"), "@{include 'inner.template' with [1]}");
+		write(dir.resolve("inner.template"), "");
+		TemplateEngine.create().render(dir.resolve("outer.template"),
+				ImmutableMap.<String, Object> of());
+	}
+
+	@Test
+	public void testEncode() throws IOException {
+		Node node = ImageStore.parse(null,
+				"@{include 'a' with {x: y}}".getBytes(StandardCharsets.UTF_8));
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		NodeCodec.write(node, new DataOutputStream(bytes));
+		Node decoded = NodeCodec.read(new DataInputStream(
+				new ByteArrayInputStream(bytes.toByteArray())), null);
+		Assert.assertEquals(node.toString(), decoded.toString());
+	}
+
+	private static void write(Path file, String content) throws IOException {
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+	}
+
+}
@@ -0,0 +1,88 @@
+package com.catascopic.template;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+
+public class LazyValueTest {
+
+	private static LazyValue counting(final AtomicInteger calls, final Object value) {
+		return LazyValue.of(new Callable<Object>() {
+
+			@Override
+			public Object call() {
+				calls.incrementAndGet();
+				return value;
+			}
+		});
+	}
+
+	@Test
+	public void testComputedOnlyIfRead() {
+		AtomicInteger calls = new AtomicInteger();
+		Template template = Template.parse("@{if show}${data}${data}@{end}");
+		Assert.assertEquals("", template.render(ImmutableMap.of(
+				"show", false, "data", counting(calls, "x"))));
+		Assert.assertEquals(0, calls.get());
+		Assert.assertEquals("xx", template.render(ImmutableMap.of(
+				"show", true, "data", counting(calls, "x"))));
+		Assert.assertEquals(1, calls.get());
+	}
+
+	@Test
+	public void testDynamicAccess() {
+		AtomicInteger calls = new AtomicInteger();
+		Assert.assertEquals("3 3", Template.parse("${eval('n')} ${locals()['n']}")
+				.render(ImmutableMap.of("n", counting(calls, 3))));
+		Assert.assertEquals(1, calls.get());
+	}
+
+	@Test
+	public void testIncludedTemplate() throws IOException {
+		Path dir = Files.createTempDirectory("lazy");
+		Files.write(dir.resolve("outer.template"),
+				"@{include 'inner.template'}".getBytes(StandardCharsets.UTF_8));
+		Files.write(dir.resolve("inner.template"),
+				"@{for n in values}${n}@{end}".getBytes(StandardCharsets.UTF_8));
+		AtomicInteger calls = new AtomicInteger();
+		Assert.assertEquals("12", TemplateEngine.create().render(
+				dir.resolve("outer.template"),
+				ImmutableMap.of("values", counting(calls, Arrays.asList(1, 2)))));
+		Assert.assertEquals(1, calls.get());
+	}
+
+	@Test
+	public void testFailure() {
+		final AtomicInteger calls = new AtomicInteger();
+		LazyValue value = LazyValue.of(new Callable<Object>() {
+
+			@Override
+			public Object call() throws IOException {
+				if (calls.incrementAndGet() == 1) {
+					throw new IOException();
+				}
+				return "ok";
+			}
+		});
+		Template template = Template.parse("${value}");
+		try {
+			template.render(ImmutableMap.of("value", value));
+			Assert.fail();
+		} catch (TemplateRenderException e) {
+			Assert.assertTrue(e.getCause() instanceof IOException);
+		}
+		Assert.assertFalse(value.isComputed());
+		Assert.assertEquals("ok", template.render(ImmutableMap.of("value", value)));
+		Assert.assertTrue(value.isComputed());
+	}
+
+}
@@ -0,0 +1,82 @@
+package com.catascopic.template;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableMap;
+
+public class MemoryMappedTest {
+
+	@Test
+	public void testTemplate() throws IOException {
+		Path dir = Files.createTempDirectory("mapped");
+		write(dir.resolve("a.template"), "caf\u00e9 \ud83d\ude00\r\n${x}");
+		TemplateEngine engine = TemplateEngine.builder().setMemoryMapped(true).build();
+		Assert.assertEquals("caf\u00e9 \ud83d\ude00\n1",
+				engine.render(dir.resolve("a.template"), ImmutableMap.of("x", 1)));
+	}
+
+	@Test
+	public void testTextFile() throws IOException {
+		Path dir = Files.createTempDirectory("mapped");
+		String big = Strings.repeat("0123456789", 2000);
+		write(dir.resolve("ascii.txt"), big);
+		write(dir.resolve("other.txt"), "\u00e9t\u00e9");
+		write(dir.resolve("a.template"), "${textFile('ascii.txt')}|"
+				+ "${len(textFile('ascii.txt'))} ${textFile('ascii.txt')[1:4]} "
+				+ "${textFile('ascii.txt')[-1]} ${textFile('other.txt')} "
+				+ "${textFile('other.txt') == '\u00e9t\u00e9'} "
+				+ "${textFile('ascii.txt') == textFile('ascii.txt')}");
+		TemplateEngine engine = TemplateEngine.builder().setMemoryMapped(true).build();
+		Path template = dir.resolve("a.template");
+		String expected = big + "|20000 123 9 \u00e9t\u00e9 true true";
+		Assert.assertEquals(expected,
+				engine.render(template, ImmutableMap.<String, Object> of()));
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		engine.render(template, bytes, ImmutableMap.<String, Object> of());
+		Assert.assertEquals(expected, new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void testBuiltInsOnMappedText() throws IOException {
+		Path dir = Files.createTempDirectory("mapped");
+		write(dir.resolve("n.txt"), "42");
+		write(dir.resolve("f.txt"), "2.5");
+		write(dir.resolve("s.txt"), " big-blue Dog\nline ");
+		String[] expressions = {
+			"int(n)", "float(f)", "n + 1", "n * 2", "-n", "n < 50", "bool(s)", "str(s)",
+			"len(s)", "contains(s, 'blue')", "contains(s, n)", "capitalize(s)",
+			"replace(s, 'blue', 'red')", "startsWith(s, ' big')", "endsWith(s, 'line ')",
+			"indexOf(s, 'e')", "indexOf(s, 'e', 6)", "lastIndexOf(s, 'e')",
+			"lastIndexOf(s, 'e', 6)", "indexOf('x42', n)", "split(s, '-')",
+			"join(splitLines(s), '|')", "upper(s)", "lower(s)", "trim(s)", "collapse(s)",
+			"separatorToCamel(trim(s), '-')", "camelToSeparator(s)", "pad(n, 5, '0')",
+			"join(['a', 'b'], n)", "uneval(s)", "eval(n)", "s[1:4]", "s == str(s)",
+			"n == '42'", "s + n",
+		};
+		StringBuilder template = new StringBuilder("@{set n = textFile('n.txt')}"
+				+ "@{set f = textFile('f.txt')}@{set s = textFile('s.txt')}");
+		for (String expression : expressions) {
+			template.append(expression).append(" = ${").append(expression).append("}\n");
+		}
+		write(dir.resolve("a.template"), template.toString());
+		String expected = TemplateEngine.create().render(dir.resolve("a.template"),
+				ImmutableMap.<String, Object> of());
+		String actual = TemplateEngine.builder().setMemoryMapped(true).build()
+				.render(dir.resolve("a.template"), ImmutableMap.<String, Object> of());
+		Assert.assertEquals(expected, actual);
+	}
+
+	private static void write(Path file, String content) throws IOException {
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+	}
+
+}
@@ -0,0 +1,236 @@
+package com.catascopic.template;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.base.Strings;
+import com.google.common.base.Ticker;
+import com.google.common.cache.CacheStats;
+
+public class ParseCacheTest {
+
+	@Test
+	public void testConcurrentMissesParseOnce() throws Exception {
+		final Path file = Files.createTempFile("parse-cache", ".txt");
+		Files.write(file, "content".getBytes(StandardCharsets.UTF_8));
+		final CountDownLatch parsing = new CountDownLatch(1);
+		final AtomicInteger parses = new AtomicInteger();
+		final ParseCache<String> cache = new ParseCache<String>(4, 0, Freshness.ALWAYS) {
+
+			@Override
+			protected String parse(Path path) throws IOException {
+				parses.incrementAndGet();
+				try {
+					parsing.await();
+				} catch (InterruptedException e) {
+					throw new AssertionError(e);
+				}
+				return new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+			}
+
+			@Override
+			protected int weigh(String parsed, long fileSize) {
+				return parsed.length();
+			}
+		};
+
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<String>> results = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				results.add(executor.submit(new Callable<String>() {
+
+					@Override
+					public String call() throws IOException {
+						return cache.get(file);
+					}
+				}));
+			}
+			parsing.countDown();
+			for (Future<String> result : results) {
+				Assert.assertEquals("content", result.get());
+			}
+			Assert.assertEquals(1, parses.get());
+		} finally {
+			executor.shutdown();
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	public void testCheckModifiedOnDemand() throws IOException {
+		Path file = Files.createTempFile("parse-cache", ".txt");
+		try {
+			Files.write(file, "first".getBytes(StandardCharsets.UTF_8));
+			ParseCache<String> cache = new ParseCache<String>(4, 0, Freshness.NEVER) {
+
+				@Override
+				protected String parse(Path path) throws IOException {
+					return new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+				}
+
+				@Override
+				protected int weigh(String parsed, long fileSize) {
+					return parsed.length();
+				}
+			};
+			Assert.assertEquals("first", cache.get(file));
+			Files.write(file, "second".getBytes(StandardCharsets.UTF_8));
+			Files.setLastModifiedTime(file, FileTime.fromMillis(
+					Files.getLastModifiedTime(file).toMillis() + 10000));
+			Assert.assertEquals("first", cache.get(file));
+			cache.checkModified();
+			Assert.assertEquals("second", cache.get(file));
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	public void testCheckModifiedEvery() throws IOException {
+		Path file = Files.createTempFile("parse-cache", ".txt");
+		try {
+			Files.write(file, "first".getBytes(StandardCharsets.UTF_8));
+			final AtomicLong now = new AtomicLong();
+			Ticker ticker = new Ticker() {
+
+				@Override
+				public long read() {
+					return now.get();
+				}
+			};
+			ParseCache<String> cache = new ParseCache<String>(4, 0,
+					Freshness.every(10, TimeUnit.SECONDS, ticker)) {
+
+				@Override
+				protected String parse(Path path) throws IOException {
+					return new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+				}
+
+				@Override
+				protected int weigh(String parsed, long fileSize) {
+					return parsed.length();
+				}
+			};
+			Assert.assertEquals("first", cache.get(file));
+			modify(file, "second");
+			now.addAndGet(TimeUnit.SECONDS.toNanos(9));
+			// still fresh, so not checked
+			Assert.assertEquals("first", cache.get(file));
+			now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+			// stale, so checked and reloaded
+			Assert.assertEquals("second", cache.get(file));
+			modify(file, "third");
+			now.addAndGet(TimeUnit.SECONDS.toNanos(5));
+			// checked when reloaded, so fresh again
+			Assert.assertEquals("second", cache.get(file));
+			now.addAndGet(TimeUnit.SECONDS.toNanos(5));
+			Assert.assertEquals("third", cache.get(file));
+			Assert.assertEquals(3, cache.stats().loadSuccessCount());
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	private static void modify(Path file, String content) throws IOException {
+		FileTime modified = Files.getLastModifiedTime(file);
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+		Files.setLastModifiedTime(file, FileTime.fromMillis(modified.toMillis() + 10000));
+	}
+
+	@Test
+	public void testLoadStats() throws IOException {
+		Path file = Files.createTempFile("parse-cache", ".txt");
+		try {
+			Files.write(file, "first".getBytes(StandardCharsets.UTF_8));
+			final AtomicInteger parses = new AtomicInteger();
+			ParseCache<String> cache = new ParseCache<String>(4, 0, Freshness.ALWAYS) {
+
+				@Override
+				protected String parse(Path path) throws IOException {
+					if (parses.incrementAndGet() == 1) {
+						throw new IOException("unparseable");
+					}
+					try {
+						Thread.sleep(20);
+					} catch (InterruptedException e) {
+						throw new AssertionError(e);
+					}
+					return new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+				}
+
+				@Override
+				protected int weigh(String parsed, long fileSize) {
+					return parsed.length();
+				}
+			};
+			try {
+				cache.get(file);
+				Assert.fail();
+			} catch (IOException e) {
+				Assert.assertEquals("unparseable", e.getMessage());
+			}
+			CacheStats stats = cache.stats();
+			Assert.assertEquals(1, stats.loadExceptionCount());
+			Assert.assertEquals(0, stats.loadSuccessCount());
+			Assert.assertEquals("first", cache.get(file));
+			Assert.assertEquals("first", cache.get(file));
+			stats = cache.stats();
+			Assert.assertEquals(1, stats.loadExceptionCount());
+			Assert.assertEquals(1, stats.loadSuccessCount());
+			Assert.assertEquals(1, stats.hitCount());
+			Assert.assertTrue(stats.totalLoadTime() >= TimeUnit.MILLISECONDS.toNanos(20));
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	public void testEvictionByWeight() throws IOException {
+		Path small = Files.createTempFile("parse-cache", ".txt");
+		Path large = Files.createTempFile("parse-cache", ".txt");
+		try {
+			Files.write(small, "small".getBytes(StandardCharsets.UTF_8));
+			Files.write(large, Strings.repeat("large", 20).getBytes(StandardCharsets.UTF_8));
+			ParseCache<String> cache = new ParseCache<String>(4, 100, Freshness.NEVER) {
+
+				@Override
+				protected String parse(Path path) throws IOException {
+					return new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+				}
+
+				@Override
+				protected int weigh(String parsed, long fileSize) {
+					return (int) fileSize;
+				}
+			};
+			cache.get(small);
+			cache.get(small);
+			cache.get(large);
+			CacheStats stats = cache.stats();
+			Assert.assertEquals(1, stats.hitCount());
+			Assert.assertEquals(2, stats.missCount());
+			Assert.assertEquals(1, stats.evictionCount());
+		} finally {
+			Files.delete(small);
+			Files.delete(large);
+		}
+	}
+
+}
@@ -1,6 +1,8 @@
 package com.catascopic.template;
 
+import java.io.FilterReader;
 import java.io.IOException;
+import java.io.Reader;
 import java.io.StringReader;
 
 import org.junit.Assert;
@@ -25,4 +27,48 @@ public class PositionReaderTest {
 		Assert.assertEquals(4, reader.getLocation().column());
 	}
 
+	@Test
+	public void testLineTerminators() throws IOException {
+		String text = "a\r\nb\rc\nd\r\n\r\ne";
+		for (Reader source : new Reader[] {
+				new StringReader(text), oneAtATime(new StringReader(text)) }) {
+			TrackingReader reader = TrackingReader.create(source);
+			StringBuilder builder = new StringBuilder();
+			for (int ch; (ch = reader.read()) != -1;) {
+				builder.append((char) ch);
+			}
+			Assert.assertEquals("a\nb\nc\nd\n\ne", builder.toString());
+			Assert.assertEquals(5, reader.getLocation().line());
+			Assert.assertEquals(1, reader.getLocation().column());
+		}
+	}
+
+	@Test
+	public void testReadUntil() throws IOException {
+		boolean[] delimiters = TrackingReader.delimiters("$\n");
+		TrackingReader reader = TrackingReader.create(
+				oneAtATime(new StringReader("abc$de\r\nf")));
+		StringBuilder builder = new StringBuilder();
+		Assert.assertEquals('$', reader.readUntil(delimiters, builder));
+		Assert.assertEquals("abc", builder.toString());
+		Assert.assertEquals(4, reader.getLocation().column());
+		reader.unread('x');
+		Assert.assertEquals('\n', reader.readUntil(delimiters, builder));
+		Assert.assertEquals("abcxde", builder.toString());
+		Assert.assertEquals(-1, reader.readUntil(delimiters, builder));
+		Assert.assertEquals("abcxdef", builder.toString());
+		Assert.assertEquals(1, reader.getLocation().line());
+		Assert.assertEquals(1, reader.getLocation().column());
+	}
+
+	private static Reader oneAtATime(Reader reader) {
+		return new FilterReader(reader) {
+
+			@Override
+			public int read(char[] cbuf, int off, int len) throws IOException {
+				return super.read(cbuf, off, Math.min(len, 1));
+			}
+		};
+	}
+
 }
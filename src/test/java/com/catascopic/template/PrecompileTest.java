@@ -0,0 +1,81 @@
+package com.catascopic.template;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+
+public class PrecompileTest {
+
+	@Test
+	public void testPrecompile() throws IOException {
+		Path dir = Files.createTempDirectory("precompile");
+		write(dir.resolve("a.template"), "a ${x}");
+		write(dir.resolve("b.template"), "@{for n in x}${n}@{end}");
+		write(dir.resolve("ignored.txt"), "@{end}");
+		TemplateEngine engine = TemplateEngine.create();
+		engine.precompile(dir, "*.template");
+		Assert.assertEquals(2, engine.templateCacheStats().loadSuccessCount());
+		Assert.assertEquals("a 1", engine.render(dir.resolve("a.template"),
+				ImmutableMap.of("x", 1)));
+		Assert.assertEquals(1, engine.templateCacheStats().hitCount());
+	}
+
+	@Test
+	public void testPrecompileAggregatesErrors() throws IOException {
+		Path dir = Files.createTempDirectory("precompile");
+		write(dir.resolve("good.template"), "${x}");
+		write(dir.resolve("bad1.template"), "@{if x}");
+		write(dir.resolve("sub/bad2.template"), "${)}");
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			TemplateEngine.create().precompile(dir, "*.template", executor);
+			Assert.fail();
+		} catch (TemplateParseException e) {
+			Assert.assertEquals(1, e.getSuppressed().length);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testParseErrorBeforeReadError() throws IOException {
+		Path dir = Files.createTempDirectory("precompile");
+		final Path gone = dir.resolve("a.template");
+		write(gone, "${x}");
+		write(dir.resolve("b.template"), "@{if x}");
+		try {
+			TemplateEngine.create().precompile(dir, "*.template", new Executor() {
+
+				@Override
+				public void execute(Runnable command) {
+					try {
+						// removed after the templates are found
+						Files.deleteIfExists(gone);
+					} catch (IOException e) {
+						throw new AssertionError(e);
+					}
+					command.run();
+				}
+			});
+			Assert.fail();
+		} catch (TemplateParseException e) {
+			Assert.assertEquals(1, e.getSuppressed().length);
+			Assert.assertTrue(e.getSuppressed()[0] instanceof IOException);
+		}
+	}
+
+	private static void write(Path file, String content) throws IOException {
+		Files.createDirectories(file.getParent());
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+	}
+
+}
@@ -0,0 +1,96 @@
+package com.catascopic.template;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.catascopic.template.parse.Node;
+import com.catascopic.template.parse.NodeCodec;
+import com.google.common.collect.ImmutableMap;
+
+public class PrecompiledImageTest {
+
+	private static final String TEMPLATE = "@{set a = 1, (b, c) = [2.5, 'x']}\n"
+			+ "@{for i, n in enumerate(values)}\n"
+			+ "${i}: ${n > a ? n * 2 : -n} ${values[1:]} ${{'k': [b, c]}['k'][0]}\n"
+			+ "@{if n == 3}\n"
+			+ "three ${null} ${true && !false}\n"
+			+ "@{else if n == 4}\n"
+			+ "four ${max(n, 10)}\n"
+			+ "@{else}\n"
+			+ "other\n"
+			+ "@{end}\n"
+			+ "@{end}\n";
+
+	private static final Map<String, Object> PARAMS =
+			ImmutableMap.<String, Object>of("values", Arrays.asList(1, 3, 4, 5));
+
+	@Test
+	public void testRoundTrip() throws IOException {
+		Path file = Files.createTempFile("image", ".template");
+		try {
+			Files.write(file, TEMPLATE.getBytes(StandardCharsets.UTF_8));
+			Node parsed = ImageStore.parse(file,
+					TEMPLATE.getBytes(StandardCharsets.UTF_8));
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			NodeCodec.write(parsed, new DataOutputStream(bytes));
+			Node decoded = NodeCodec.read(new DataInputStream(
+					new ByteArrayInputStream(bytes.toByteArray())), file);
+			Assert.assertEquals(parsed.toString(), decoded.toString());
+			Assert.assertEquals(render(parsed), render(decoded));
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	public void testImageDirectory() throws IOException {
+		Path dir = Files.createTempDirectory("image");
+		Path images = dir.resolve("images");
+		Path file = dir.resolve("a.template");
+		Files.write(file, TEMPLATE.getBytes(StandardCharsets.UTF_8));
+
+		String expected = TemplateEngine.create().render(file, PARAMS);
+		Assert.assertEquals(expected, TemplateEngine.builder()
+				.setPrecompiledDirectory(images).build().render(file, PARAMS));
+		List<Path> written = list(images);
+		Assert.assertEquals(1, written.size());
+		Assert.assertEquals(expected, TemplateEngine.builder()
+				.setPrecompiledDirectory(images).build().render(file, PARAMS));
+
+		Files.write(written.get(0), new byte[] {1, 2, 3});
+		Assert.assertEquals(expected, TemplateEngine.builder()
+				.setPrecompiledDirectory(images).build().render(file, PARAMS));
+		Assert.assertTrue(Files.size(written.get(0)) > 3);
+	}
+
+	private static String render(Node node) throws IOException {
+		StringBuilder builder = new StringBuilder();
+		node.render(builder, TestUtil.testScope(PARAMS));
+		return builder.toString();
+	}
+
+	private static List<Path> list(Path dir) throws IOException {
+		List<Path> files = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+			for (Path file : stream) {
+				files.add(file);
+			}
+		}
+		return files;
+	}
+
+}
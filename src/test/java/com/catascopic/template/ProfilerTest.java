@@ -0,0 +1,141 @@
+package com.catascopic.template;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.catascopic.template.Profiler.Sample;
+import com.google.common.collect.ImmutableMap;
+
+public class ProfilerTest {
+
+	@Test
+	public void testSamples() {
+		Profiler profiler = new Profiler();
+		Settings settings = Settings.builder().setProfiler(profiler).build();
+		Template template = Template.parse("@{for n in range(x)}${n * 10},@{end}", settings);
+		Assert.assertEquals("0,10,20,", template.render(ImmutableMap.of("x", 3)));
+
+		Map<String, Sample> samples = new HashMap<>();
+		for (Sample sample : profiler.samples()) {
+			samples.put(sample.label() + " " + sample.location().column(), sample);
+		}
+		Sample loop = samples.get("for 6");
+		Assert.assertEquals(1, loop.count());
+		Assert.assertEquals(8, loop.output());
+		Sample eval = samples.get("eval 22");
+		Assert.assertEquals(3, eval.count());
+		Assert.assertEquals(5, eval.output());
+		Assert.assertEquals(3, samples.get("expression 22").count());
+		Assert.assertEquals(1, samples.get("expression 11").count());
+		Assert.assertTrue(loop.nanos() >= eval.nanos());
+		Assert.assertEquals("for", profiler.samples().get(0).label());
+	}
+
+	@Test
+	public void testParallelLoop() throws IOException {
+		Profiler profiler = new Profiler();
+		Settings settings = Settings.builder().setProfiler(profiler).build();
+		Template template = Template.parse(
+				"@{for parallel n in range(x)}${n % 10}@{end}", settings);
+		Assert.assertEquals(200, template.render(ImmutableMap.of("x", 200)).length());
+
+		Map<String, Sample> samples = new HashMap<>();
+		for (Sample sample : profiler.samples()) {
+			samples.put(sample.label() + " " + sample.location().column(), sample);
+		}
+		Assert.assertEquals(200, samples.get("for 6").output());
+		Sample eval = samples.get("eval 31");
+		Assert.assertEquals(200, eval.count());
+		Assert.assertEquals(200, eval.output());
+
+		StringBuilder builder = new StringBuilder();
+		profiler.writeCollapsedStacks(builder);
+		for (String line : builder.toString().split("\n")) {
+			Assert.assertTrue(line, line.startsWith("for "));
+		}
+	}
+
+	@Test
+	public void testCollapsedStacks() throws IOException {
+		Path dir = Files.createTempDirectory("profiler");
+		write(dir.resolve("outer.template"), "@{for n in [1, 2]}@{include 'inner.template'}@{end}");
+		write(dir.resolve("inner.template"), "${n}");
+		Profiler profiler = new Profiler();
+		TemplateEngine engine = TemplateEngine.create(
+				Settings.builder().setProfiler(profiler).build());
+		Assert.assertEquals("12", engine.render(dir.resolve("outer.template"),
+				ImmutableMap.<String, Object> of()));
+
+		StringBuilder builder = new StringBuilder();
+		profiler.writeCollapsedStacks(builder);
+		String[] lines = builder.toString().split("\n");
+		Assert.assertEquals(4, lines.length);
+		String eval = "for outer.template:1:7;include outer.template:1:29;"
+				+ "eval inner.template:1:3";
+		boolean found = false;
+		for (String line : lines) {
+			Assert.assertTrue(line, line.matches("\\S.* \\d+"));
+			found |= line.startsWith(eval + " ");
+		}
+		Assert.assertTrue(builder.toString(), found);
+
+		profiler.reset();
+		Assert.assertTrue(profiler.samples().isEmpty());
+	}
+
+	@Test
+	public void testCountNull() throws IOException {
+		StringBuilder builder = new StringBuilder();
+		Appendable writer = new Profiler().counting(builder);
+		writer.append(null);
+		Assert.assertEquals("null", builder.toString());
+	}
+
+	@Test
+	public void testEncodedText() throws IOException {
+		Profiler profiler = new Profiler();
+		Settings settings = Settings.builder().setProfiler(profiler).build();
+		Template template = Template.parse("@{for n in [1, 2]}caf\u00e9 ${n}@{end}", settings);
+		final StringBuilder encoded = new StringBuilder();
+		final StringBuilder builder = new StringBuilder();
+		template.render(new EncodedOutput() {
+
+			@Override
+			public Appendable append(CharSequence csq) {
+				return builder.append(csq);
+			}
+
+			@Override
+			public Appendable append(CharSequence csq, int start, int end) {
+				return builder.append(csq, start, end);
+			}
+
+			@Override
+			public Appendable append(char c) {
+				return builder.append(c);
+			}
+
+			@Override
+			public void appendEncoded(CharSequence text, byte[] utf8) {
+				Assert.assertArrayEquals(text.toString().getBytes(StandardCharsets.UTF_8), utf8);
+				encoded.append(text);
+				builder.append(text);
+			}
+		}, ImmutableMap.<String, Object> of());
+		Assert.assertEquals("caf\u00e9 1caf\u00e9 2", builder.toString());
+		Assert.assertEquals("caf\u00e9 caf\u00e9 ", encoded.toString());
+		Assert.assertEquals(12, profiler.samples().get(0).output());
+	}
+
+	private static void write(Path file, String content) throws IOException {
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+	}
+
+}
@@ -0,0 +1,85 @@
+package com.catascopic.template;
+
+import static com.catascopic.template.Rendering.render;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.ForwardingMap;
+import com.google.common.collect.ImmutableMap;
+
+public class SlotsTest {
+
+	@Test
+	public void testSetShadowsParam() {
+		Assert.assertEquals("1 2", render("${x} @{set x = 2}${x}", "x", 1));
+	}
+
+	@Test
+	public void testParamsNotCopied() {
+		final Map<String, Object> params = new HashMap<>();
+		for (int i = 0; i < 1000; i++) {
+			params.put("p" + i, i);
+		}
+		Map<String, Object> uncopyable = new ForwardingMap<String, Object>() {
+
+			@Override
+			protected Map<String, Object> delegate() {
+				return params;
+			}
+
+			@Override
+			public Set<Map.Entry<String, Object>> entrySet() {
+				throw new AssertionError("copied");
+			}
+		};
+		Assert.assertEquals("7 999 5",
+				Template.parse("${p7} ${eval('p999')} @{set p7 = 5}${p7}").render(uncopyable));
+		Assert.assertEquals(7, params.get("p7"));
+	}
+
+	@Test
+	public void testSetShadowsUnboundParam() {
+		Assert.assertEquals("1 2 1",
+				render("${eval('x')} @{set y = eval('x') + 1}${y} ${x}", "x", 1));
+	}
+
+	@Test
+	public void testDynamicAccess() {
+		Assert.assertEquals("3 3 13",
+				render("@{for n in [3]}${n} ${eval('n')} ${locals()['x']}${locals()['n']}@{end}", "x", 1));
+	}
+
+	@Test
+	public void testUndefined() {
+		try {
+			render("${missing}");
+			Assert.fail();
+		} catch (TemplateRenderException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testCalledTemplateSeesCaller() throws IOException {
+		Path dir = Files.createTempDirectory("slots");
+		Files.write(dir.resolve("outer.template"),
+				"@{for n in values}${template('inner.template', {'m': n * 2})}@{end}"
+				.getBytes(StandardCharsets.UTF_8));
+		Files.write(dir.resolve("inner.template"), "(${n},${m})"
+				.getBytes(StandardCharsets.UTF_8));
+		Assert.assertEquals("(1,2)(2,4)", TemplateEngine.create().render(
+				dir.resolve("outer.template"),
+				ImmutableMap.of("values", Arrays.asList(1, 2))));
+	}
+
+}
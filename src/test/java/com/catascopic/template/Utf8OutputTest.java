@@ -0,0 +1,55 @@
+package com.catascopic.template;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableMap;
+
+public class Utf8OutputTest {
+
+	@Test
+	public void testEncoding() throws IOException {
+		String text = "a\u00e9\u20ac\ud83d\ude00 \ud800x\udc00";
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		Utf8Output output = new Utf8Output(bytes);
+		for (int i = 0; i < text.length(); i++) {
+			output.append(text.charAt(i));
+		}
+		output.append(text).append(text, 1, 5).flush();
+		String expected = text + text + text.substring(1, 5);
+		Assert.assertArrayEquals(expected.getBytes(StandardCharsets.UTF_8),
+				bytes.toByteArray());
+	}
+
+	@Test
+	public void testTrailingHighSurrogate() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		new Utf8Output(bytes).append("ab\ud800").flush();
+		Assert.assertArrayEquals("ab\ud800".getBytes(StandardCharsets.UTF_8),
+				bytes.toByteArray());
+		Assert.assertArrayEquals(new byte[] {97, 98, 63}, bytes.toByteArray());
+	}
+
+	@Test
+	public void testAppendNull() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		new Utf8Output(bytes).append(null).append(null, 1, 3).flush();
+		Assert.assertEquals("nullul", new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void testRenderBytes() throws IOException {
+		String big = Strings.repeat("\u00e9t\u00e9 ", 5000);
+		Template template = Template.parse(big + "${x}\n\u20ac${x}");
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		template.render(bytes, ImmutableMap.of("x", "\ud83d\ude00"));
+		Assert.assertEquals(template.render(ImmutableMap.of("x", "\ud83d\ude00")),
+				new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+	}
+
+}
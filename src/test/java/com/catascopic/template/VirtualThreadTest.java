@@ -0,0 +1,161 @@
+package com.catascopic.template;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.ImmutableMap;
+
+public class VirtualThreadTest {
+
+	private static final int TEMPLATES = 8;
+	private static final int RENDERS = 5000;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test(timeout = 60000)
+	public void testConcurrentRenders() throws Exception {
+		ExecutorService executor = newVirtualThreadPerTaskExecutor();
+		Assume.assumeNotNull(executor);
+		final Path dir = folder.getRoot().toPath();
+		for (int i = 0; i < TEMPLATES; i++) {
+			write(dir.resolve(i + ".template"),
+					"${n}:@{include 'part.template' with {n: n}}|${textFile('" + i + ".txt')}");
+			write(dir.resolve(i + ".txt"), "text " + i);
+		}
+		write(dir.resolve("part.template"), "@{print n}${n * 2}");
+		StringBuilder log = new StringBuilder();
+		final TemplateEngine engine = TemplateEngine.create(Settings.builder()
+				.setDebugger(Debuggers.appendTo(log))
+				.build());
+		try {
+			List<Future<String>> results = new ArrayList<>();
+			for (int i = 0; i < RENDERS; i++) {
+				final int n = i;
+				results.add(executor.submit(new Callable<String>() {
+
+					@Override
+					public String call() throws IOException {
+						return engine.render(dir.resolve(n % TEMPLATES + ".template"),
+								ImmutableMap.of("n", n));
+					}
+				}));
+			}
+			for (int i = 0; i < RENDERS; i++) {
+				Assert.assertEquals(i + ":" + i * 2 + "|text " + i % TEMPLATES,
+						results.get(i).get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+		Assert.assertEquals(TEMPLATES + 1, engine.templateCacheStats().missCount());
+		Assert.assertEquals(TEMPLATES, engine.textCacheStats().missCount());
+		Assert.assertEquals(RENDERS, log.toString().split("\n").length);
+	}
+
+	/**
+	 * A virtual thread is pinned to its carrier if it blocks while holding a
+	 * monitor, so neither the thread that parses a file nor the threads that
+	 * wait for it may hold one.
+	 */
+	@Test(timeout = 10000)
+	public void testCacheLoadHoldsNoMonitor() throws Exception {
+		final Path file = Files.createTempFile("virtual", ".txt");
+		write(file, "content");
+		final CountDownLatch release = new CountDownLatch(1);
+		final AtomicReference<Thread> parser = new AtomicReference<>();
+		final ParseCache<String> cache = new ParseCache<String>(4, 0, Freshness.NEVER) {
+
+			@Override
+			protected String parse(Path path) throws IOException {
+				parser.set(Thread.currentThread());
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					throw new AssertionError(e);
+				}
+				return new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+			}
+
+			@Override
+			protected int weigh(String parsed, long fileSize) {
+				return parsed.length();
+			}
+		};
+		Runnable get = new Runnable() {
+
+			@Override
+			public void run() {
+				try {
+					cache.get(file);
+				} catch (IOException e) {
+					throw new AssertionError(e);
+				}
+			}
+		};
+		Thread first = new Thread(get);
+		Thread second = new Thread(get);
+		try {
+			first.start();
+			second.start();
+			awaitWaiting(first);
+			awaitWaiting(second);
+			Assert.assertEquals(0, lockedMonitors(first));
+			Assert.assertEquals(0, lockedMonitors(second));
+		} finally {
+			release.countDown();
+			first.join();
+			second.join();
+			Files.delete(file);
+		}
+		Assert.assertEquals(1, cache.stats().loadSuccessCount());
+	}
+
+	private static void awaitWaiting(Thread thread) throws InterruptedException {
+		while (thread.getState() != Thread.State.WAITING) {
+			Thread.sleep(1);
+		}
+	}
+
+	private static int lockedMonitors(Thread thread) {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		ThreadInfo info = threads.getThreadInfo(new long[] {thread.getId()}, true, false)[0];
+		return info.getLockedMonitors().length;
+	}
+
+	/**
+	 * Returns a virtual-thread-per-task executor, or null before Java 21.
+	 */
+	private static ExecutorService newVirtualThreadPerTaskExecutor() {
+		try {
+			return (ExecutorService) Executors.class
+					.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return null;
+		}
+	}
+
+	private static void write(Path file, String content) throws IOException {
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+	}
+
+}
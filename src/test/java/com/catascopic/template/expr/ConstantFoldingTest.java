@@ -0,0 +1,61 @@
+package com.catascopic.template.expr;
+
+import static com.catascopic.template.Rendering.render;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.catascopic.template.Params;
+import com.catascopic.template.Settings;
+import com.catascopic.template.Template;
+import com.catascopic.template.TemplateFunction;
+import com.google.common.collect.ImmutableMap;
+
+public class ConstantFoldingTest {
+
+	@Test
+	public void testFoldLiterals() {
+		Template template = Template.parse("${'a' + 'b'} ${[1, 2, 3][1:]} ${-(2 * 3)} ${{'k': 1}.k}");
+		Assert.assertEquals("block[ab [2, 3] -6 1]", template.toString());
+		Assert.assertEquals("ab [2, 3] -6 1", template.render());
+	}
+
+	@Test
+	public void testVariablesAreNotFolded() {
+		Assert.assertEquals("block[eval:ADD(1, x)]", Template.parse("${1 + x}").toString());
+	}
+
+	@Test
+	public void testConditional() {
+		Assert.assertEquals("block[eval:x]", Template.parse("${1 > 2 ? y : x}").toString());
+		Assert.assertEquals("no", render("@{if 1 > 2}yes@{else if len('')}maybe@{else}no@{end}"));
+		Assert.assertEquals("block[text]",
+				Template.parse("@{if true}text@{else}other@{end}").toString());
+	}
+
+	@Test
+	public void testErrorsAreDeferred() {
+		Template template = Template.parse("${1 / 0}");
+		try {
+			template.render();
+			Assert.fail();
+		} catch (ArithmeticException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testOnlyBuiltInCallsAreReused() {
+		final int[] calls = new int[1];
+		Template template = Template.parse("@{for n in range(3)}${next(0)}${upper('a')}@{end}",
+				Settings.builder().addFunction("next", new TemplateFunction() {
+
+					@Override
+					public Object apply(Params params) {
+						return calls[0]++;
+					}
+				}).build());
+		Assert.assertEquals("0A1A2A", template.render(ImmutableMap.<String, Object> of()));
+	}
+
+}
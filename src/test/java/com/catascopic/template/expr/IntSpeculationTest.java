@@ -0,0 +1,39 @@
+package com.catascopic.template.expr;
+
+import static com.catascopic.template.Rendering.render;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class IntSpeculationTest {
+
+	@Test
+	public void testFizzBuzz() {
+		Assert.assertEquals("1 2 F 4 B F 7 8 F B 11 F 13 14 FB ",
+				render("@{for n in range(1, 16)}"
+						+ "${n % 15 == 0 ? 'FB' : n % 3 == 0 ? 'F' : n % 5 == 0 ? 'B' : n} "
+						+ "@{end}"));
+	}
+
+	@Test
+	public void testOperandTypeChanges() {
+		// the same terms see ints, then doubles and strings
+		Assert.assertEquals("3 false|3.5 false|ab false|4 true|",
+				render("@{for a, b in pairs}${a + b} ${a == b}|@{end}",
+						"pairs", Arrays.asList(
+								Arrays.asList(1, 2),
+								Arrays.asList(1.5, 2),
+								Arrays.asList("a", "b"),
+								Arrays.asList(2, 2))));
+	}
+
+	@Test
+	public void testNestedFallback() {
+		Assert.assertEquals("7 7.5 7 ",
+				render("@{for x in xs}${x * 2 + 1} @{end}",
+						"xs", Arrays.asList(3, 3.25, 3)));
+	}
+
+}
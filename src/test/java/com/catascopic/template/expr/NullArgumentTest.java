@@ -0,0 +1,62 @@
+package com.catascopic.template.expr;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+import com.catascopic.template.Template;
+import com.catascopic.template.TemplateRenderException;
+
+/**
+ * A null argument that a function cannot accept fails the same way whether
+ * the function is called with one, two, three, or more arguments.
+ */
+@RunWith(Parameterized.class)
+public class NullArgumentTest {
+
+	@Parameter(0)
+	public String expression;
+
+	@Test
+	public void test() {
+		try {
+			Template.parse("x ${" + expression + "}")
+					.render(Collections.<String, Object> singletonMap("x", null));
+			Assert.fail(expression);
+		} catch (TemplateRenderException e) {
+			Assert.assertTrue(e.getMessage(), e.getMessage().contains("null"));
+			Assert.assertFalse(e.getMessage(), e.getTrace().isEmpty());
+		}
+	}
+
+	// @formatter:off
+	@Parameters(name = "{0}")
+	public static List<Object[]> params() {
+		return Arrays.asList(new Object[][] {
+			{"len(x)"},
+			{"abs(x)"},
+			{"sqrt(x)"},
+			{"int(x)"},
+			{"keys(x)"},
+			{"contains(x, 1)"},
+			{"indexOf(x, 'a')"},
+			{"indexOf('abc', x)"},
+			{"lastIndexOf(x, 'a', 1)"},
+			{"max(x, 1)"},
+			{"min(1, x, 3)"},
+			{"max(1, x, 3, 4)"},
+			{"sum(1, 2, x, 4)"},
+			{"max(x)"},
+			{"sum(x)"},
+		});
+	}
+	// @formatter:on
+
+}
@@ -0,0 +1,77 @@
+package com.catascopic.template.parse;
+
+import static com.catascopic.template.Rendering.render;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.catascopic.template.Template;
+import com.catascopic.template.TemplateRenderException;
+import com.google.common.collect.ImmutableMap;
+
+public class BlockTest {
+
+	private static String evals(int count) {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < count; i++) {
+			builder.append("${x + ").append(i).append("},");
+		}
+		return builder.toString();
+	}
+
+	private static String expected(int count) {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < count; i++) {
+			builder.append(i + 1).append(',');
+		}
+		return builder.toString();
+	}
+
+	@Test
+	public void testComposed() {
+		Assert.assertEquals("", render(""));
+		Assert.assertEquals("1", render("${x}", "x", 1));
+		Assert.assertEquals(expected(BlockCompiler.MAX_NODES / 2),
+				render(evals(BlockCompiler.MAX_NODES / 2), "x", 1));
+	}
+
+	@Test
+	public void testInterpreted() {
+		Assert.assertEquals(expected(BlockCompiler.MAX_NODES),
+				render(evals(BlockCompiler.MAX_NODES), "x", 1));
+	}
+
+	@Test
+	public void testNested() {
+		Assert.assertEquals("[1,2,][2,3,][3,4,]",
+				render("@{for x in values}[" + evals(2) + "]@{end}",
+						"values", Arrays.asList(1, 2, 3)));
+	}
+
+	@Test(expected = TemplateRenderException.class)
+	public void testRenderException() {
+		render("a${x}b@{for c in x}${c}@{end}", "x", 1);
+	}
+
+	@Test(expected = IOException.class)
+	public void testIOException() throws IOException {
+		Template.parse("a${x}b").render(new Writer() {
+
+			@Override
+			public void write(char[] cbuf, int off, int len) throws IOException {
+				throw new IOException();
+			}
+
+			@Override
+			public void flush() {}
+
+			@Override
+			public void close() {}
+		}, ImmutableMap.of("x", 1));
+	}
+
+}
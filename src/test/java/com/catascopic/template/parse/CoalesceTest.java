@@ -0,0 +1,26 @@
+package com.catascopic.template.parse;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.catascopic.template.Template;
+import com.google.common.collect.ImmutableMap;
+
+public class CoalesceTest {
+
+	@Test
+	public void testStaticRuns() {
+		Template template = Template.parse("<html>\n"
+				+ "<head>${'title'}</head>\n"
+				+ "@{if false}\n"
+				+ "never\n"
+				+ "@{end}\n"
+				+ "<body>${x}</body>\n"
+				+ "</html>\n");
+		Assert.assertEquals("block[<html>\n<head>title</head>\n<body>, eval:x, </body>\n</html>\n]",
+				template.toString());
+		Assert.assertEquals("<html>\n<head>title</head>\n<body>1</body>\n</html>\n",
+				template.render(ImmutableMap.of("x", 1)));
+	}
+
+}
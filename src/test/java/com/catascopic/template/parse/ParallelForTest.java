@@ -0,0 +1,64 @@
+package com.catascopic.template.parse;
+
+import static com.catascopic.template.Rendering.render;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.catascopic.template.Template;
+import com.catascopic.template.TemplateParseException;
+import com.catascopic.template.TemplateRenderException;
+
+public class ParallelForTest {
+
+	@Test
+	public void testOrder() {
+		Assert.assertEquals(
+				render("@{for n in range(1000)}${n * 2},@{end}"),
+				render("@{for parallel n in range(1000)}${n * 2},@{end}"));
+	}
+
+	@Test
+	public void testNested() {
+		Assert.assertEquals("[ab][ab][ab]",
+				render("@{for parallel x in [1, 2, 3]}[@{for c in 'ab'}${c}@{end}]@{end}"));
+	}
+
+	@Test
+	public void testOuterVariables() {
+		Assert.assertEquals("a1 a2 a3 ",
+				render("@{for parallel n in values}${prefix}${n} @{end}",
+						"prefix", "a",
+						"values", Arrays.asList(1, 2, 3)));
+	}
+
+	@Test
+	public void testEmpty() {
+		Assert.assertEquals("", render("@{for parallel n in []}${n}@{end}"));
+	}
+
+	@Test
+	public void testVariableNamedParallel() {
+		Assert.assertEquals("12", render("@{for parallel in [1, 2]}${parallel}@{end}"));
+		Assert.assertEquals("1a2b",
+				render("@{for parallel, x in [[1, 'a'], [2, 'b']]}${parallel}${x}@{end}"));
+	}
+
+	@Test(expected = TemplateParseException.class)
+	public void testSetNotAllowed() {
+		Template.parse("@{for parallel n in [1, 2]}@{set x = n}@{end}");
+	}
+
+	@Test(expected = TemplateParseException.class)
+	public void testNestedSetNotAllowed() {
+		Template.parse("@{for parallel n in [1, 2]}@{if n}@{set x = n}@{end}@{end}");
+	}
+
+	@Test(expected = TemplateRenderException.class)
+	public void testFailure() {
+		render("@{for parallel n in [[1], [2], 3, [4]]}@{for x in n}${x}@{end}@{end}");
+	}
+
+}